@@ -0,0 +1,17 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+
+/**
+ * A blocking call to the Octopus API, as run asynchronously by {@link AuthenticatedWebClient#supplyAsync(ApiCall)}.
+ * @param <T> the type of the result
+ */
+@FunctionalInterface
+public interface ApiCall<T> {
+    /**
+     * Makes the call.
+     * @return the result
+     * @throws IOException if the call fails
+     */
+    T call() throws IOException;
+}
@@ -0,0 +1,143 @@
+package com.octopusdeploy.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs asynchronous Octopus API calls for one server on a bounded pool of daemon threads.
+ * Threads are started on demand and stop again after a minute without work. When the queue is full
+ * the call runs on the submitting thread, so a burst of calls slows its caller down instead of
+ * queueing without limit.
+ */
+public class ApiExecutor implements Closeable {
+    static final int QUEUE_CAPACITY = 256;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Create a new executor.
+     * @param name the server the calls are made to, used in thread names
+     * @param threads the maximum number of calls that run at once
+     */
+    public ApiExecutor(String name, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The number of threads must be greater than zero.");
+        }
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), new DaemonThreadFactory(name),
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("The API executor has been shut down.");
+                    }
+                    task.run();
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a call on this executor.
+     * @param call the call to run
+     * @param <T> the type of the result
+     * @return a future completed with the result of the call, or with the exception it threw
+     */
+    public <T> CompletableFuture<T> submit(ApiCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(new IOException("The API client for this Octopus server has been shut down.", ex));
+        }
+        return future;
+    }
+
+    /**
+     * Waits for an asynchronous API call and returns its result, rethrowing the exception it failed with.
+     * @param future the future returned by an asynchronous API method
+     * @param <T> the type of the result
+     * @return the result of the call
+     * @throws IOException if the call failed
+     */
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the Octopus server to respond.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * The number of calls currently running.
+     * @return the active call count
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * The number of calls waiting for a thread.
+     * @return the queued call count
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting calls. Calls already submitted still run.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private DaemonThreadFactory(String name) {
+            this.prefix = "Octopus API " + name + " #";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
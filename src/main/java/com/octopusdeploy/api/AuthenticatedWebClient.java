@@ -4,21 +4,48 @@ import java.io.*;
 import java.net.*;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.apache.commons.lang.StringUtils;
 
 /**
  * An Octopus Deploy web API client that automatically puts the API key in a header
  * Offers GET and POST, returning the response as JSON.
+ * Requests are sent through a pluggable {@link HttpTransport} that is shared by every request to the host.
  */
-public class AuthenticatedWebClient {
+public class AuthenticatedWebClient implements Closeable {
     private static final String UTF8 = "UTF-8";
     private static final String GET = "GET";
     private static final String POST = "POST";
     private static final String OCTOPUS_API_KEY_HEADER = "X-Octopus-ApiKey";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    static final int BUFFER_SIZE = 8192;
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    /** Identifies the GET requests whose whole response is returned as a {@link WebResponse}. */
+    private static final Object WEB_RESPONSE = new Object();
     
     private final String hostUrl;
     private final String apiKey;
-    public String spaceId;
+    private final WebClientOptions options;
+    private final HttpTransport transport;
+    private final WebClientMetrics metrics;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestLimiter limiter;
+    private final ResponseCache responseCache;
+    private final ApiExecutor executor;
+    private final NameCache nameCache;
+    private final TenantTagCache tenantTagCache;
+    private final CapabilitiesCache capabilitiesCache;
+    private final SingleFlight singleFlight;
+    private final Usage usage;
+    private final Deadline deadline;
+    private final String spaceId;
 
     /**
      * Create a new instance.
@@ -26,8 +53,125 @@ public class AuthenticatedWebClient {
      * @param apiKey The Octopus Deploy API key to use in making API requests
      */
     public AuthenticatedWebClient(String hostUrl, String apiKey) {
+        this(hostUrl, apiKey, new WebClientOptions());
+    }
+
+    /**
+     * Create a new instance.
+     * @param hostUrl URL to the Octopus Deploy host. example: https://octopus.company.com/
+     * @param apiKey The Octopus Deploy API key to use in making API requests
+     * @param options transport options for connections to this host
+     */
+    public AuthenticatedWebClient(String hostUrl, String apiKey, WebClientOptions options) {
+        this(hostUrl, apiKey, options, createTransport(options));
+    }
+
+    /**
+     * Create a new instance that sends its requests through the given transport.
+     * @param hostUrl URL to the Octopus Deploy host. example: https://octopus.company.com/
+     * @param apiKey The Octopus Deploy API key to use in making API requests
+     * @param options timeout options for requests to this host
+     * @param transport the transport used for every request to this host
+     */
+    public AuthenticatedWebClient(String hostUrl, String apiKey, WebClientOptions options, HttpTransport transport) {
         this.hostUrl = hostUrl;
         this.apiKey = apiKey;
+        this.options = options;
+        this.transport = transport;
+        this.metrics = new WebClientMetrics();
+        this.retryPolicy = new RetryPolicy(options.getMaxAttempts(),
+                options.getRetryBaseDelayMillis(), options.getRetryMaxDelayMillis());
+        this.circuitBreaker = new CircuitBreaker(hostUrl, options.getCircuitBreakerThreshold(),
+                options.getCircuitBreakerOpenMillis(), metrics);
+        this.limiter = new RequestLimiter(options.getMaxConcurrentRequests(), options.getRequestsPerSecond(), metrics);
+        this.responseCache = new ResponseCache(options.getResponseCacheMaxBytes(), options.getResponseCacheMaxEntryBytes());
+        this.executor = new ApiExecutor(hostUrl, options.getAsyncThreads());
+        this.nameCache = new NameCache(options.getNameCacheTtlMillis(), executor, metrics,
+                options.getSnapshotDirectory() == null ? null : new SnapshotStore(options.getSnapshotDirectory(), hostUrl, apiKey));
+        this.tenantTagCache = new TenantTagCache(options.getNameCacheTtlMillis(), executor);
+        this.capabilitiesCache = new CapabilitiesCache(options.getCapabilitiesTtlMillis(), executor);
+        this.singleFlight = new SingleFlight(metrics);
+        this.usage = new Usage();
+        this.deadline = Deadline.none();
+        this.spaceId = null;
+    }
+
+    /**
+     * Creates a client that shares the transport, metrics, circuit breaker, request limiter, response cache,
+     * executor, name cache, tenant tag cache, capabilities and in-flight requests of another, with its own space and deadline.
+     */
+    private AuthenticatedWebClient(AuthenticatedWebClient source, String spaceId, Deadline deadline) {
+        this.hostUrl = source.hostUrl;
+        this.apiKey = source.apiKey;
+        this.options = source.options;
+        this.transport = source.transport;
+        this.metrics = source.metrics;
+        this.retryPolicy = source.retryPolicy;
+        this.circuitBreaker = source.circuitBreaker;
+        this.limiter = source.limiter;
+        this.responseCache = source.responseCache;
+        this.executor = source.executor;
+        this.nameCache = source.nameCache;
+        this.tenantTagCache = source.tenantTagCache;
+        this.capabilitiesCache = source.capabilitiesCache;
+        this.singleFlight = source.singleFlight;
+        this.usage = source.usage;
+        this.spaceId = spaceId;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns a client for the same host and space whose calls must all complete before the deadline.
+     * The returned client shares this client's connections.
+     * @param deadline the deadline for every call made through the returned client
+     * @return a new client
+     */
+    public AuthenticatedWebClient withDeadline(Deadline deadline) {
+        return new AuthenticatedWebClient(this, spaceId, deadline);
+    }
+
+    /**
+     * Returns a client for the same host whose requests are made in the given space.
+     * The returned client shares this client's connections and caches, and keeps its deadline.
+     * Clients are immutable, so views for different spaces can be used by concurrent builds.
+     * @param spaceId the id of the space, or null for requests outside any space
+     * @return a new client
+     */
+    public AuthenticatedWebClient forSpace(String spaceId) {
+        return new AuthenticatedWebClient(this, spaceId, deadline);
+    }
+
+    /**
+     * The space requests made through this client are made in.
+     * @return the id of the space, or null for requests outside any space
+     */
+    public String getSpaceId() {
+        return spaceId;
+    }
+
+    /**
+     * The deadline that calls made through this client must complete by.
+     * @return the deadline, which may be {@link Deadline#none()}
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Creates the transport selected by the options, falling back to the URLConnection transport
+     * when HTTP/2 is requested but the running JVM does not support it.
+     * @param options transport options for connections to the host
+     * @return a new transport
+     */
+    private static HttpTransport createTransport(WebClientOptions options) {
+        if (options.isHttp2Enabled()) {
+            if (Http2Transport.isSupported()) {
+                return new Http2Transport(options);
+            }
+            Logger.getLogger(AuthenticatedWebClient.class.getName()).log(Level.WARNING,
+                    "HTTP/2 was requested for the Octopus API but requires Java 11 or later; using HTTP/1.1 instead.");
+        }
+        return new UrlConnectionTransport(options);
     }
 
     /**
@@ -46,22 +190,47 @@ public class AuthenticatedWebClient {
         {
             throw new IllegalArgumentException("Data to post can not be null");
         }
-        URLConnection connection = getConnection(POST, resource, null);
-        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");        
-        connection.setRequestProperty("Content-Length", Integer.toString(data.length));
-        connection.setDoOutput(true);
-        connection.connect();
-        DataOutputStream dataOutputStream = new DataOutputStream(connection.getOutputStream());
-        dataOutputStream.write(data);
-        dataOutputStream.flush();
-        dataOutputStream.close();
-        return getResponse(connection);
+        return post(resource, RequestBody.of(data, "application/x-www-form-urlencoded"));
+    }
+
+    /**
+     * Executes a post against the resource provided, writing the body straight to the connection.
+     * Bodies of unknown length are sent with chunked transfer encoding.
+     * @param resource the URL to the resource (omitting the host portion)
+     * @param body the body to post
+     * @return JSON blob representing the response from the server.
+     * @throws ProtocolException if the operation is performed on a URL that is not HTTP or HTTPS
+     * @throws IOException if there are errors establishing a web connection OR writing the body
+     * @throws IllegalArgumentException When the body to post is null
+     */
+    public WebResponse post(String resource, RequestBody body) throws ProtocolException, IOException
+    {
+        if (body == null)
+        {
+            throw new IllegalArgumentException("Data to post can not be null");
+        }
+        TransportRequest request = createRequest(POST, resource, null, body);
+        request.setHeader("Content-Type", body.getContentType());
+        return execute(request);
     }
 
     public WebResponse getRoot() throws IOException {
         return get("", null);
     }
 
+    /**
+     * Executes a get request against the API root and streams the response body into the reader.
+     * The response is kept in the response cache, see {@link #getCached(String, Map, ResponseReader)}.
+     * @param responseReader converts the response body into the result
+     * @param <T> the type of the result
+     * @return the result produced by the reader
+     * @throws WebResponseException if the server responds with an error code
+     * @throws IOException if establishing the web connection or reading the response fails
+     */
+    public <T> T getRoot(ResponseReader<T> responseReader) throws IOException {
+        return getCached("", null, responseReader);
+    }
+
     /**
      * Executes a get request against the resource provided.
      * @param resource the URL to the resource (omitting the host portion)
@@ -74,6 +243,7 @@ public class AuthenticatedWebClient {
     
     /**
      * Executes a get request against the resource provided.
+     * If the same request is already in flight, no new request is sent and its response is shared.
      * @param resource the URL to the resource (omitting the host portion)
      * @param queryParameters a map of keys and values to include in the get. 
      * @return JSON blob representing the response from the server.
@@ -81,8 +251,167 @@ public class AuthenticatedWebClient {
      */
     public WebResponse get(String resource, Map<String, String> queryParameters) throws IOException {
         String encodedParameterString = mapToQueryParameters(queryParameters);
-        URLConnection connection = getConnection(GET, resource, encodedParameterString);
-        return getResponse(connection);
+        TransportRequest request = createRequest(GET, resource, encodedParameterString, null);
+        return singleFlight.execute(request.getUrl().toString(), WEB_RESPONSE, request.getDeadline(), () -> execute(request));
+    }
+
+    /**
+     * Executes a get request against the resource provided and streams the response body into the reader.
+     * The body is never materialized as a whole; the reader consumes it as it arrives.
+     * If a request for the same URL with the same reader is already in flight, no new request is sent
+     * and its result is shared, so readers should be constants and their results must not be modified.
+     * @param resource the URL to the resource (omitting the host portion)
+     * @param queryParameters a map of keys and values to include in the get, may be null
+     * @param responseReader converts the response body into the result
+     * @param <T> the type of the result
+     * @return the result produced by the reader
+     * @throws WebResponseException if the server responds with an error code
+     * @throws IOException if establishing the web connection or reading the response fails
+     */
+    public <T> T get(String resource, Map<String, String> queryParameters, ResponseReader<T> responseReader) throws IOException {
+        return get(resource, queryParameters, responseReader, false);
+    }
+
+    /**
+     * Executes a get request against the resource provided like {@link #get(String, Map, ResponseReader)},
+     * keeping the response body in the response cache so that the next request for it is sent conditionally
+     * and a 304 Not Modified is read from memory.
+     * Only for small resources that rarely change, such as the API root, spaces, environments and tag sets;
+     * whole lists of projects or tenants are not cached, so their bodies are never held while they are parsed.
+     * @param resource the URL to the resource (omitting the host portion)
+     * @param queryParameters a map of keys and values to include in the get, may be null
+     * @param responseReader converts the response body into the result
+     * @param <T> the type of the result
+     * @return the result produced by the reader
+     * @throws WebResponseException if the server responds with an error code
+     * @throws IOException if establishing the web connection or reading the response fails
+     */
+    public <T> T getCached(String resource, Map<String, String> queryParameters, ResponseReader<T> responseReader) throws IOException {
+        return get(resource, queryParameters, responseReader, true);
+    }
+
+    private <T> T get(String resource, Map<String, String> queryParameters, ResponseReader<T> responseReader,
+                      boolean cacheable) throws IOException {
+        String encodedParameterString = mapToQueryParameters(queryParameters);
+        TransportRequest request = createRequest(GET, resource, encodedParameterString, null).setCacheable(cacheable);
+        return singleFlight.execute(request.getUrl().toString(), responseReader, request.getDeadline(),
+                () -> exchange(request, (code, reader) -> {
+                    if (isErrorCode(code)) {
+                        throw new WebResponseException(code, readFully(reader));
+                    }
+                    return responseReader.read(reader);
+                }));
+    }
+
+    /**
+     * Runs a blocking API call on the bounded executor shared by every client for this host.
+     * The call keeps this client's deadline, which starts counting when the call is submitted.
+     * @param call the call to run
+     * @param <T> the type of the result
+     * @return a future completed with the result of the call, or with the exception it threw
+     */
+    public <T> CompletableFuture<T> supplyAsync(ApiCall<T> call) {
+        usage.inFlight.incrementAndGet();
+        CompletableFuture<T> future = executor.submit(call);
+        future.whenComplete((result, ex) -> end());
+        return future;
+    }
+
+    /**
+     * The executor asynchronous calls to this host run on.
+     * @return the executor
+     */
+    public ApiExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * The transport this client sends its requests through.
+     * @return the transport
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * The circuit breaker guarding requests to the Octopus server.
+     * @return the circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * The limiter on concurrent requests and requests per second to the Octopus server.
+     * @return the request limiter
+     */
+    public RequestLimiter getRequestLimiter() {
+        return limiter;
+    }
+
+    /**
+     * The cache of GET responses that can be revalidated with the Octopus server.
+     * @return the response cache
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * The cache used to resolve the names of resources on this host.
+     * @return the name cache
+     */
+    public NameCache getNameCache() {
+        return nameCache;
+    }
+
+    /**
+     * The cache of the tenant tag index of every space on this host.
+     * @return the tenant tag cache
+     */
+    public TenantTagCache getTenantTagCache() {
+        return tenantTagCache;
+    }
+
+    /**
+     * The cache of what this host can do, as read from its API root.
+     * @return the capabilities cache
+     */
+    public CapabilitiesCache getCapabilitiesCache() {
+        return capabilitiesCache;
+    }
+
+    /**
+     * Counters for the traffic between this client and the Octopus server.
+     * @return the metrics
+     */
+    public WebClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Closes this client once no request or asynchronous call is in flight through it or any view of it,
+     * such as when it is replaced by a client with other settings while builds may still be using it.
+     */
+    public void closeWhenIdle() {
+        usage.retiring.set(true);
+        if (usage.inFlight.get() == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Writes any changed name cache snapshots, then shuts down the transport and the executor.
+     * Requests already in flight are allowed to complete.
+     */
+    @Override
+    public void close() {
+        if (!usage.closed.compareAndSet(false, true)) {
+            return;
+        }
+        nameCache.saveSnapshots();
+        executor.close();
+        transport.close();
     }
     
     /**
@@ -105,18 +434,18 @@ public class AuthenticatedWebClient {
     }
     
     /**
-     * Creates and returns a new URLConnection object using the given information.
+     * Creates a new request for the given resource, authenticated with the API key.
      * @param method GET or POST
      * @param endpoint the resource endpoint to connect to
      * @param queryParameters query parameters string to use in GET requests
-     * @return the URLConnection (may be HTTP or HTTPS)
+     * @param body the body to send, or null
+     * @return the request
      * @throws MalformedURLException if the supplied url is not a valid url
-     * @throws ProtocolException if the supplied url is not http or https
-     * @throws IOException if there is a failure establishing an http connection
+     * @throws DeadlineExceededException if this client's deadline has already passed
      * @throws IllegalArgumentException if the provided method is not GET or POST
      */
-    private URLConnection getConnection(String method, String endpoint, String queryParameters) 
-        throws MalformedURLException, ProtocolException, IOException, IllegalArgumentException {
+    private TransportRequest createRequest(String method, String endpoint, String queryParameters, RequestBody body)
+        throws MalformedURLException, DeadlineExceededException, IllegalArgumentException {
         if (!GET.equals(method) && !POST.equals(method)) {
             throw new IllegalArgumentException(String.format("Unsupported method '%s'.", method));
         }
@@ -129,55 +458,217 @@ public class AuthenticatedWebClient {
         {
             joinedUrl = StringUtils.join(new String[]{joinedUrl, queryParameters}, "?");
         }
-        URL url = new URL(joinedUrl);
-        URLConnection connection = url.openConnection();
-        if (connection instanceof HttpURLConnection) {
-            ((HttpURLConnection)connection).setRequestMethod(method);
-        }
-        connection.setRequestProperty(OCTOPUS_API_KEY_HEADER, apiKey);
-        return connection;
+        deadline.check(String.format("preparing %s %s", method, joinedUrl));
+        TransportRequest request = new TransportRequest(method, new URL(joinedUrl), body);
+        request.setHeader(OCTOPUS_API_KEY_HEADER, apiKey);
+        applyTimeouts(request, deadline.min(Deadline.after(options.getCallTimeoutMillis(), TimeUnit.MILLISECONDS)));
+        request.setHeader(ContentEncoding.ACCEPT_ENCODING_HEADER, ContentEncoding.SUPPORTED_ENCODINGS);
+        return request;
     }
     
     /**
-     * Use the connection to read a response from the server.
-     * @param connection an instantiated URLConnection object.
+     * Sets the socket timeouts of a request, capped so that they do not run past its deadline.
+     * @param request the request
+     * @param callDeadline the deadline the whole call must complete by
+     */
+    private void applyTimeouts(TransportRequest request, Deadline callDeadline) {
+        request.setTimeouts(callDeadline.clampTimeout(options.getConnectTimeoutMillis()),
+                callDeadline.clampTimeout(options.getReadTimeoutMillis()),
+                callDeadline);
+    }
+
+    /**
+     * Sends the request and reads the response from the server.
+     * @param request the request to send
      * @return JSON blob representing the response from the server.
      * @throws IOException if there is an issue when connecting or reading the response
-     * @throws IllegalArgumentException if the connection is null
      */
-    private WebResponse getResponse(URLConnection connection) throws IOException, IllegalArgumentException  {
-        int responseCode = -1;
-        if (connection == null)
-        {
-            throw new IllegalArgumentException("Connection can not be null when getting a response from server.");
-        }
-        connection.connect();
-        InputStream streamToRead = null;
-        if(connection instanceof HttpURLConnection) {
-            responseCode = ((HttpURLConnection)connection).getResponseCode();
-            if (isErrorCode(responseCode))
-            {
-                streamToRead = ((HttpURLConnection)connection).getErrorStream();
+    private WebResponse execute(TransportRequest request) throws IOException {
+        return exchange(request, (code, reader) -> new WebResponse(code, readFully(reader)));
+    }
+
+    /**
+     * Sends the request and hands the response to the handler, counting it as in flight until the handler returns.
+     */
+    private <T> T exchange(TransportRequest request, ResponseHandler<T> handler) throws IOException {
+        usage.inFlight.incrementAndGet();
+        try {
+            return send(request, handler);
+        } finally {
+            end();
+        }
+    }
+
+    private void end() {
+        if (usage.inFlight.decrementAndGet() == 0 && usage.retiring.get()) {
+            close();
+        }
+    }
+
+    /**
+     * Sends the request through the circuit breaker and the request limiter, and hands the response to the handler.
+     * The limiter's slot is held until the handler has finished reading the response.
+     * GET requests that fail because the server is unreachable, or that are answered with 502, 503 or 504,
+     * are sent again after a backoff delay while the retry policy and the request's deadline allow it.
+     * A failure while the handler reads the response is not retried.
+     * Cacheable requests for a URL whose response is cached are sent with its validators; a 304 Not Modified
+     * answer is handed to the handler as a 200 with the cached body.
+     * @param request the request to send
+     * @param handler converts the response into the result
+     * @param <T> the type of the result
+     * @return the result produced by the handler
+     * @throws CircuitBreakerOpenException if requests to the server are currently paused
+     * @throws IOException if the last attempt failed
+     */
+    private <T> T send(TransportRequest request, ResponseHandler<T> handler) throws IOException {
+        ResponseCache.Entry cached = request.isCacheable() ? responseCache.get(request.getUrl().toString()) : null;
+        if (cached != null) {
+            cached.applyValidators(request);
+        }
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.acquire();
+            try {
+                limiter.acquire(request.getDeadline());
+            } catch (IOException | RuntimeException ex) {
+                circuitBreaker.release();
+                throw ex;
+            }
+            applyTimeouts(request, request.getDeadline());
+            boolean outcomeRecorded = false;
+            long delayMillis;
+            try (TransportResponse response = transport.execute(request)) {
+                int code = response.getCode();
+                outcomeRecorded = true;
+                if (!RetryPolicy.isTransient(code)) {
+                    circuitBreaker.recordSuccess();
+                    return handle(request, response, cached, handler);
+                }
+                circuitBreaker.recordFailure();
+                delayMillis = nextRetryDelayMillis(request, attempt, response.getHeader(RETRY_AFTER_HEADER));
+                if (delayMillis < 0) {
+                    return handle(request, response, cached, handler);
+                }
+            } catch (IOException ex) {
+                // once the server has answered, the outcome is recorded and the handler may have consumed part of
+                // the body, so a failure while reading it is neither counted again nor retried
+                if (outcomeRecorded || !RetryPolicy.isTransient(ex)) {
+                    if (!outcomeRecorded) {
+                        circuitBreaker.release();
+                    }
+                    throw ex;
+                }
+                circuitBreaker.recordFailure();
+                delayMillis = nextRetryDelayMillis(request, attempt, null);
+                if (delayMillis < 0) {
+                    throw ex;
+                }
+            } catch (RuntimeException ex) {
+                if (!outcomeRecorded) {
+                    circuitBreaker.release();
+                }
+                throw ex;
+            } finally {
+                limiter.release();
             }
+            Logger.getLogger(AuthenticatedWebClient.class.getName()).log(Level.FINE, "Retrying {0} in {1} ms (attempt {2} failed)",
+                    new Object[] {request, delayMillis, attempt});
+            sleep(delayMillis);
+            metrics.recordRetry();
         }
-        if (streamToRead == null) {
-            streamToRead = connection.getInputStream();
+    }
+
+    /**
+     * Works out how long to wait before retrying a failed attempt. Only GET requests are retried,
+     * and not once the failures have opened the circuit breaker.
+     * @return the delay in milliseconds, or -1 if the request should not be retried
+     */
+    private long nextRetryDelayMillis(TransportRequest request, int attempt, String retryAfter) {
+        if (!GET.equals(request.getMethod())) {
+            return -1;
+        }
+        long delayMillis = circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                ? -1
+                : retryPolicy.nextDelayMillis(attempt, retryAfter, request.getDeadline());
+        if (delayMillis < 0) {
+            metrics.recordRetriesExhausted();
         }
-        BufferedReader reader = new BufferedReader(new InputStreamReader(streamToRead, Charset.forName(UTF8)));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
+        return delayMillis;
+    }
 
-        while ((inputLine = reader.readLine()) != null) {
-            response.append(inputLine);
+    private <T> T handle(TransportRequest request, TransportResponse response, ResponseCache.Entry cached,
+                         ResponseHandler<T> handler) throws IOException {
+        int code = response.getCode();
+        if (code == HTTP_NOT_MODIFIED && cached != null) {
+            metrics.recordResponse(false);
+            metrics.recordCacheHit();
+            try (Reader reader = openReader(cached.openStream())) {
+                return handler.handle(HTTP_OK, reader);
+            }
         }
-        reader.close();
-        if (connection instanceof HttpURLConnection) {
-            ((HttpURLConnection)connection).disconnect();
+        InputStream body = openBody(request, response);
+        ResponseCache.Capture capture = code == HTTP_OK && request.isCacheable()
+                ? responseCache.capture(request.getUrl().toString(), response, body)
+                : null;
+        try (Reader reader = openReader(capture != null ? capture : body)) {
+            T result = handler.handle(code, reader);
+            if (capture != null && capture.complete()) {
+                metrics.recordCacheStore();
+            }
+            return result;
         }
-        return new WebResponse(responseCode, response.toString());
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a request to the Octopus server.");
+        }
+    }
+
+    /**
+     * Opens the response body, decompressing it if the server chose to compress it.
+     * Reading fails once the request's deadline passes.
+     * @param request the request the response belongs to
+     * @param response the response to read
+     * @return the decoded body
+     * @throws IOException if the body can not be opened
+     */
+    private InputStream openBody(TransportRequest request, TransportResponse response) throws IOException {
+        String contentEncoding = response.getHeader(ContentEncoding.CONTENT_ENCODING_HEADER);
+        InputStream body = request.getDeadline().guard(response.getBody(), "reading the response to " + request);
+        return ContentEncoding.decode(contentEncoding, body, metrics);
+    }
+
+    private static Reader openReader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, Charset.forName(UTF8)), BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the remainder of a character stream, preserving line breaks.
+     * @param reader the stream to read
+     * @return the content
+     * @throws IOException if the stream can not be read
+     */
+    private static String readFully(Reader reader) throws IOException {
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            content.append(buffer, 0, read);
+        }
+        return content.toString();
     }
     
-   
+    /**
+     * Converts a response into the result of a call.
+     */
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(int code, Reader body) throws IOException;
+    }
+
     /**
     * Returns true if the HTTP Response code represents an error.
     * @param code the HTTP Response code
@@ -222,4 +713,13 @@ public class AuthenticatedWebClient {
             this.content = content;
         }   
     }
+
+    /**
+     * How a client and its views are being used, shared by all of them.
+     */
+    private static final class Usage {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean retiring = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+    }
 }
@@ -0,0 +1,109 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.ServerCapabilities;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps what a server can do, as read from its API root, so that checks such as whether it has spaces
+ * do not ask the server every time a build runs or a configuration page is shown.
+ * The capabilities are used for the time to live, and are refreshed in the background once they are half way through it.
+ * One cache is shared by every API view of the same server; a server whose configuration changes gets a new one.
+ */
+public class CapabilitiesCache {
+    private final long ttlNanos;
+    private final ApiExecutor executor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Loaded loaded;
+
+    /**
+     * Create a new cache.
+     * @param ttlMillis how long loaded capabilities are used for
+     * @param executor runs background refreshes
+     */
+    public CapabilitiesCache(long ttlMillis, ApiExecutor executor) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the capabilities, loading them if there are none or they are older than the time to live.
+     * @param root loads the capabilities from the API root
+     * @return the capabilities
+     * @throws IOException if the capabilities have to be loaded and can not be
+     */
+    public ServerCapabilities get(ApiCall<ServerCapabilities> root) throws IOException {
+        Loaded current = loaded;
+        if (current != null && current.ageNanos() < ttlNanos) {
+            if (current.ageNanos() >= ttlNanos / 2) {
+                refreshInBackground(root);
+            }
+            return current.capabilities;
+        }
+        return load(root);
+    }
+
+    /**
+     * Gets the capabilities without waiting for the server. If there are none, or they are no longer fresh,
+     * they are loaded in the background for the next caller.
+     * @param root loads the capabilities from the API root
+     * @return the last capabilities loaded, even if they are older than the time to live, or null if none have been
+     */
+    public ServerCapabilities getIfLoaded(ApiCall<ServerCapabilities> root) {
+        Loaded current = loaded;
+        if (current == null || current.ageNanos() >= ttlNanos / 2) {
+            refreshInBackground(root);
+        }
+        return current == null ? null : current.capabilities;
+    }
+
+    /**
+     * Forgets the capabilities, so the next use loads them again.
+     */
+    public void clear() {
+        loaded = null;
+    }
+
+    private ServerCapabilities load(ApiCall<ServerCapabilities> root) throws IOException {
+        long startNanos = System.nanoTime();
+        ServerCapabilities capabilities = root.call();
+        synchronized (this) {
+            Loaded previous = loaded;
+            // a slower load that started earlier must not replace newer capabilities
+            if (previous != null && previous.loadedNanos - startNanos > 0) {
+                return previous.capabilities;
+            }
+            loaded = new Loaded(capabilities, startNanos);
+            return capabilities;
+        }
+    }
+
+    private void refreshInBackground(ApiCall<ServerCapabilities> root) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        executor.submit(() -> load(root)).whenComplete((capabilities, ex) -> {
+            refreshing.set(false);
+            if (ex != null) {
+                Logger.getLogger(CapabilitiesCache.class.getName()).log(Level.FINE, "Unable to read the capabilities of the Octopus server", ex);
+            }
+        });
+    }
+
+    private static final class Loaded {
+        private final ServerCapabilities capabilities;
+        private final long loadedNanos;
+
+        private Loaded(ServerCapabilities capabilities, long loadedNanos) {
+            this.capabilities = capabilities;
+            this.loadedNanos = loadedNanos;
+        }
+
+        private long ageNanos() {
+            return System.nanoTime() - loadedNanos;
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Channel;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
-
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Methods for the Channels aspect of the Octopus API
@@ -29,26 +29,35 @@ public class ChannelsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Set<Channel> getChannelsByProjectId(String projectId) throws IllegalArgumentException, IOException {
-        TreeSet<Channel> channels = new TreeSet<Channel>(Comparator.comparing(Channel::getName).thenComparing(Channel::getId));
-        AuthenticatedWebClient.WebResponse response = webClient.get("projects/" + projectId + "/channels");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json.getJSONArray("Items")) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            String description = jsonObj.getString("Description");
-            boolean isDefault = jsonObj.getBoolean("IsDefault");
-            channels.add(new Channel(id, name, description, projectId, isDefault));
-        }
-        return channels;
+        return webClient.get("projects/" + projectId + "/channels", null, CHANNELS_READER);
+    }
+
+    private static final ResponseReader<Set<Channel>> CHANNELS_READER = reader -> {
+        TreeSet<Channel> channels = new TreeSet<>(Comparator.comparing(Channel::getName).thenComparing(Channel::getId));
+        channels.addAll(JsonReaders.readPage(new JsonReader(reader), Codecs.CHANNEL::read).getItems());
+        return Collections.unmodifiableSet(channels);
+    };
+
+    private static final ResponseReader<Page<Channel>> CHANNEL_PAGE_READER =
+            reader -> JsonReaders.readPage(new JsonReader(reader), Codecs.CHANNEL::read);
+
+    /**
+     * Asks the server for the channels of a project whose names contain the given text, ignoring case.
+     * @param projectId the project to search the channels of
+     * @param partialName the text to search for
+     * @return the first page of matching channels
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Page<Channel> searchChannels(String projectId, String partialName) throws IllegalArgumentException, IOException {
+        return webClient.get("projects/" + projectId + "/channels", NameCache.searchParameters(partialName), CHANNEL_PAGE_READER);
     }
-    
+
     /**
      * Uses the authenticated web client to pull a channel by name from a given project
-     * from the api and convert them to POJOs
+     * from the api and convert them to POJOs.
+     * Only the channels whose names contain the name are requested, unless there are too many of them;
+     * lookups are remembered by the server's {@link NameCache}.
      * @param projectId the project to get channels for
      * @param channelName the channel to return
      * @return the named channel for the given project
@@ -56,22 +65,40 @@ public class ChannelsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Channel getChannelByName(String projectId, String channelName) throws IllegalArgumentException, IOException {
-        AuthenticatedWebClient.WebResponse response = webClient.get("projects/" + projectId + "/channels");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json.getJSONArray("Items")) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            String description = jsonObj.getString("Description");
-            boolean isDefault = jsonObj.getBoolean("IsDefault");
-            if (channelName.equals(name))
-            {
-                return new Channel(id, name, description, projectId, isDefault);
-            }
-        }
-        return null;
+        return webClient.getNameCache().find(webClient.getSpaceId(), "projects/" + projectId + "/channels", Codecs.CHANNEL,
+                () -> getChannelsByProjectId(projectId), partialName -> searchChannels(projectId, partialName),
+                Channel::getName, channelName, false);
+    }
+
+    /**
+     * Loads the channels of a project into the server's {@link NameCache}, so their names are found without asking the server.
+     * @param projectId the project to get channels for
+     * @return the project's channels
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Set<Channel> prefetchNames(String projectId) throws IllegalArgumentException, IOException {
+        Set<Channel> channels = getChannelsByProjectId(projectId);
+        webClient.getNameCache().put(webClient.getSpaceId(), "projects/" + projectId + "/channels", Codecs.CHANNEL, channels, Channel::getName);
+        return channels;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getChannelsByProjectId(String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @return a future completed with the project's channels
+     */
+    public CompletableFuture<Set<Channel>> getChannelsByProjectIdAsync(String projectId) {
+        return webClient.supplyAsync(() -> getChannelsByProjectId(projectId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getChannelByName(String, String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @param channelName the name of the channel
+     * @return a future completed with the channel with that name, or null
+     */
+    public CompletableFuture<Channel> getChannelByNameAsync(String projectId, String channelName) {
+        return webClient.supplyAsync(() -> getChannelByName(projectId, channelName));
     }
 }
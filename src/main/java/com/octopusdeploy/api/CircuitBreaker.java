@@ -0,0 +1,129 @@
+package com.octopusdeploy.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops requests from being sent to an Octopus server that keeps failing.
+ * After enough consecutive failures the circuit opens and requests fail immediately for a while.
+ * Once that time is up a single probe request is let through: if it succeeds the circuit closes again,
+ * otherwise it stays open for another period.
+ * One breaker is shared by every request made to the same server.
+ */
+public class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    /**
+     * The states a circuit breaker moves between.
+     */
+    public enum State {
+        /** Requests are sent normally. */
+        CLOSED,
+        /** Requests fail without being sent. */
+        OPEN,
+        /** A single probe request is being sent to find out whether the server has recovered. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final WebClientMetrics metrics;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+
+    /**
+     * Create a new breaker.
+     * @param name the server the breaker protects, used in messages
+     * @param failureThreshold the number of consecutive failures that opens the circuit
+     * @param openMillis how long the circuit stays open before a probe is let through
+     * @param metrics the metrics to record state changes in
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, WebClientMetrics metrics) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be greater than zero.");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+        this.metrics = metrics;
+        metrics.recordCircuitState(state);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Asks permission to send a request. Every successful call must be followed by exactly one of
+     * {@link #recordSuccess()}, {@link #recordFailure()} or {@link #release()}.
+     * @throws CircuitBreakerOpenException if the circuit is open, or a probe is already in flight
+     */
+    public synchronized void acquire() throws CircuitBreakerOpenException {
+        if (state == State.OPEN) {
+            long waitedNanos = System.nanoTime() - openedAtNanos;
+            if (waitedNanos < openNanos) {
+                metrics.recordShortCircuit();
+                throw new CircuitBreakerOpenException(name, consecutiveFailures,
+                        TimeUnit.NANOSECONDS.toSeconds(openNanos - waitedNanos) + 1);
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                metrics.recordShortCircuit();
+                throw new CircuitBreakerOpenException(name, consecutiveFailures, 0);
+            }
+            probeInFlight = true;
+        }
+    }
+
+    /**
+     * Records that the server answered a request normally.
+     */
+    public synchronized void recordSuccess() {
+        probeInFlight = false;
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records that a request failed because the server was unreachable or unavailable.
+     */
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAtNanos = System.nanoTime();
+            transitionTo(State.OPEN);
+            metrics.recordCircuitOpened();
+        }
+    }
+
+    /**
+     * Gives back permission for a request that ended without saying anything about the server's health,
+     * for example because its deadline passed before it was sent.
+     */
+    public synchronized void release() {
+        probeInFlight = false;
+    }
+
+    private void transitionTo(State newState) {
+        LOGGER.log(newState == State.OPEN ? Level.WARNING : Level.INFO,
+                "Circuit breaker for {0} changed from {1} to {2} after {3} consecutive failures",
+                new Object[] {name, state, newState, consecutiveFailures});
+        state = newState;
+        metrics.recordCircuitState(newState);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker [name=" + name + ", state=" + state + ", consecutiveFailures=" + consecutiveFailures + "]";
+    }
+}
@@ -0,0 +1,18 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the {@link CircuitBreaker} for the Octopus server is open.
+ */
+public class CircuitBreakerOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String server, int consecutiveFailures, long retryInSeconds) {
+        super(retryInSeconds > 0
+                ? String.format("Requests to %s are paused for %d seconds after %d consecutive failures.",
+                        server, retryInSeconds, consecutiveFailures)
+                : String.format("Requests to %s are paused while checking whether it has recovered from %d consecutive failures.",
+                        server, consecutiveFailures));
+    }
+}
@@ -0,0 +1,46 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reads and writes one model type, both as the JSON the Octopus API uses for it and as the compact
+ * binary form used to cache it. Implementations are stateless and are shared through {@link Codecs}.
+ * @param <T> the model type
+ */
+public interface Codec<T> {
+    /**
+     * Reads a value from the JSON of its API resource, skipping any fields the model does not hold.
+     * @param json a reader positioned at the start of the value
+     * @return the value
+     * @throws IOException if the JSON is not a value of this type
+     */
+    T read(JsonReader json) throws IOException;
+
+    /**
+     * Writes a value as the JSON of its API resource.
+     * @param json the writer to write to
+     * @param value the value
+     * @throws IOException if the value can not be written
+     */
+    void write(JsonWriter json, T value) throws IOException;
+
+    /**
+     * Writes a value in the binary cache form.
+     * @param out the output to write to
+     * @param value the value
+     * @throws IOException if the value can not be written
+     */
+    void encode(DataOutput out, T value) throws IOException;
+
+    /**
+     * Reads a value written by {@link #encode(DataOutput, Object)}.
+     * @param in the input to read from
+     * @return the value
+     * @throws IOException if the input does not hold a value of this type
+     */
+    T decode(DataInput in) throws IOException;
+}
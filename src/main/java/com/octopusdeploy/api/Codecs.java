@@ -0,0 +1,1067 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.octopusdeploy.api.data.Channel;
+import com.octopusdeploy.api.data.DeploymentProcess;
+import com.octopusdeploy.api.data.DeploymentProcessStep;
+import com.octopusdeploy.api.data.DeploymentProcessStepAction;
+import com.octopusdeploy.api.data.DeploymentProcessTemplate;
+import com.octopusdeploy.api.data.Environment;
+import com.octopusdeploy.api.data.Project;
+import com.octopusdeploy.api.data.Release;
+import com.octopusdeploy.api.data.SelectedPackage;
+import com.octopusdeploy.api.data.ServerCapabilities;
+import com.octopusdeploy.api.data.Space;
+import com.octopusdeploy.api.data.Tag;
+import com.octopusdeploy.api.data.TagSet;
+import com.octopusdeploy.api.data.Task;
+import com.octopusdeploy.api.data.Tenant;
+import com.octopusdeploy.api.data.Variable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The codecs of the {@link com.octopusdeploy.api.data} model types, shared by every API class.
+ * Each codec reads only the JSON fields its model holds, and writes the model in a compact binary form:
+ * strings as a varint length followed by UTF-8 bytes, with a length of zero for null, integers as zig-zag
+ * varints, and collections as a varint count followed by their items.
+ */
+public final class Codecs {
+    /** The version of the binary form; caches written with a different version must not be decoded. */
+    public static final int FORMAT_VERSION = 1;
+
+    public static final Codec<ServerCapabilities> SERVER_CAPABILITIES = new ServerCapabilitiesCodec();
+    public static final Codec<Space> SPACE = new SpaceCodec();
+    public static final Codec<Project> PROJECT = new ProjectCodec();
+    public static final Codec<Tenant> TENANT = new TenantCodec();
+    public static final Codec<Environment> ENVIRONMENT = new EnvironmentCodec();
+    public static final Codec<Channel> CHANNEL = new ChannelCodec();
+    public static final Codec<Release> RELEASE = new ReleaseCodec();
+    public static final Codec<Task> TASK = new TaskCodec();
+    public static final Codec<Tag> TAG = new TagCodec();
+    public static final Codec<TagSet> TAG_SET = new TagSetCodec();
+    public static final Codec<Variable> VARIABLE = new VariableCodec();
+    public static final Codec<SelectedPackage> SELECTED_PACKAGE = new SelectedPackageCodec();
+    public static final Codec<DeploymentProcessStepAction> DEPLOYMENT_PROCESS_STEP_ACTION = new DeploymentProcessStepActionCodec();
+    public static final Codec<DeploymentProcessStep> DEPLOYMENT_PROCESS_STEP = new DeploymentProcessStepCodec();
+    public static final Codec<DeploymentProcess> DEPLOYMENT_PROCESS = new DeploymentProcessCodec();
+    public static final Codec<DeploymentProcessTemplate> DEPLOYMENT_PROCESS_TEMPLATE = new DeploymentProcessTemplateCodec();
+
+    private Codecs() {
+    }
+
+    /**
+     * Writes a collection in the binary form.
+     * @param out the output to write to
+     * @param values the values, written in iteration order
+     * @param codec writes each value
+     * @param <T> the type of the values
+     * @throws IOException if a value can not be written
+     */
+    public static <T> void encodeAll(DataOutput out, Collection<? extends T> values, Codec<T> codec) throws IOException {
+        writeVarInt(out, values.size());
+        for (T value : values) {
+            codec.encode(out, value);
+        }
+    }
+
+    /**
+     * Reads a collection written by {@link #encodeAll(DataOutput, Collection, Codec)} into the given collection.
+     * @param in the input to read from
+     * @param codec reads each value
+     * @param into the collection to add the values to
+     * @param <T> the type of the values
+     * @param <C> the type of the collection
+     * @return the collection
+     * @throws IOException if the input does not hold a collection of values of the type
+     */
+    public static <T, C extends Collection<T>> C decodeAll(DataInput in, Codec<T> codec, C into) throws IOException {
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            into.add(codec.decode(in));
+        }
+        return into;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    static int readInt(DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in cached data");
+    }
+
+    private static Set<Tag> newTagSet() {
+        return new TreeSet<>(Comparator.comparing(Tag::getSortOrder).thenComparing(Tag::getName).thenComparing(Tag::getId));
+    }
+
+    private static final class ServerCapabilitiesCodec implements Codec<ServerCapabilities> {
+        @Override
+        public ServerCapabilities read(JsonReader json) throws IOException {
+            String application = null;
+            String version = null;
+            Map<String, String> links = new LinkedHashMap<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Application":
+                        application = JsonReaders.nextString(json);
+                        break;
+                    case "Version":
+                        version = JsonReaders.nextString(json);
+                        break;
+                    case "Links":
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            String name = json.nextName();
+                            links.put(name, JsonReaders.nextString(json));
+                        }
+                        json.endObject();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new ServerCapabilities(application, version, Collections.unmodifiableMap(links));
+        }
+
+        @Override
+        public void write(JsonWriter json, ServerCapabilities value) throws IOException {
+            json.beginObject();
+            json.name("Application").value(value.getApplication());
+            json.name("Version").value(value.getVersion());
+            json.name("Links").beginObject();
+            for (Map.Entry<String, String> link : value.getLinks().entrySet()) {
+                json.name(link.getKey()).value(link.getValue());
+            }
+            json.endObject();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, ServerCapabilities value) throws IOException {
+            writeString(out, value.getApplication());
+            writeString(out, value.getVersion());
+            writeVarInt(out, value.getLinks().size());
+            for (Map.Entry<String, String> link : value.getLinks().entrySet()) {
+                writeString(out, link.getKey());
+                writeString(out, link.getValue());
+            }
+        }
+
+        @Override
+        public ServerCapabilities decode(DataInput in) throws IOException {
+            String application = readString(in);
+            String version = readString(in);
+            int count = readVarInt(in);
+            Map<String, String> links = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = readString(in);
+                links.put(name, readString(in));
+            }
+            return new ServerCapabilities(application, version, Collections.unmodifiableMap(links));
+        }
+    }
+
+    private static final class SpaceCodec implements Codec<Space> {
+        @Override
+        public Space read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Space(id, name);
+        }
+
+        @Override
+        public void write(JsonWriter json, Space value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Space value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+        }
+
+        @Override
+        public Space decode(DataInput in) throws IOException {
+            return new Space(readString(in), readString(in));
+        }
+    }
+
+    private static final class ProjectCodec implements Codec<Project> {
+        @Override
+        public Project read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Project(id, name);
+        }
+
+        @Override
+        public void write(JsonWriter json, Project value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Project value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+        }
+
+        @Override
+        public Project decode(DataInput in) throws IOException {
+            return new Project(readString(in), readString(in));
+        }
+    }
+
+    private static final class TenantCodec implements Codec<Tenant> {
+        @Override
+        public Tenant read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            Set<String> tenantTags = new LinkedHashSet<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "TenantTags":
+                        tenantTags.addAll(JsonReaders.readArray(json, JsonReaders::nextString));
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Tenant(id, name, Collections.unmodifiableSet(tenantTags));
+        }
+
+        @Override
+        public void write(JsonWriter json, Tenant value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("TenantTags").beginArray();
+            for (String tag : value.getTenantTags()) {
+                json.value(tag);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Tenant value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeVarInt(out, value.getTenantTags().size());
+            for (String tag : value.getTenantTags()) {
+                writeString(out, tag);
+            }
+        }
+
+        @Override
+        public Tenant decode(DataInput in) throws IOException {
+            String id = readString(in);
+            String name = readString(in);
+            int tagCount = readVarInt(in);
+            Set<String> tenantTags = new LinkedHashSet<>();
+            for (int i = 0; i < tagCount; i++) {
+                tenantTags.add(readString(in));
+            }
+            return new Tenant(id, name, Collections.unmodifiableSet(tenantTags));
+        }
+    }
+
+    private static final class EnvironmentCodec implements Codec<Environment> {
+        @Override
+        public Environment read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String description = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Description":
+                        description = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Environment(id, name, description);
+        }
+
+        @Override
+        public void write(JsonWriter json, Environment value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Description").value(value.getDescription());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Environment value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getDescription());
+        }
+
+        @Override
+        public Environment decode(DataInput in) throws IOException {
+            return new Environment(readString(in), readString(in), readString(in));
+        }
+    }
+
+    private static final class ChannelCodec implements Codec<Channel> {
+        @Override
+        public Channel read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String description = null;
+            String projectId = null;
+            boolean isDefault = false;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Description":
+                        description = JsonReaders.nextString(json);
+                        break;
+                    case "ProjectId":
+                        projectId = JsonReaders.nextString(json);
+                        break;
+                    case "IsDefault":
+                        isDefault = json.nextBoolean();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Channel(id, name, description, projectId, isDefault);
+        }
+
+        @Override
+        public void write(JsonWriter json, Channel value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Description").value(value.getDescription());
+            json.name("ProjectId").value(value.getProjectId());
+            json.name("IsDefault").value(value.getIsDefault());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Channel value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getDescription());
+            writeString(out, value.getProjectId());
+            out.writeBoolean(value.getIsDefault());
+        }
+
+        @Override
+        public Channel decode(DataInput in) throws IOException {
+            return new Channel(readString(in), readString(in), readString(in), readString(in), in.readBoolean());
+        }
+    }
+
+    private static final class ReleaseCodec implements Codec<Release> {
+        @Override
+        public Release read(JsonReader json) throws IOException {
+            String id = null;
+            String projectId = null;
+            String channelId = null;
+            String releaseNotes = null;
+            String version = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "ProjectId":
+                        projectId = JsonReaders.nextString(json);
+                        break;
+                    case "ChannelId":
+                        channelId = JsonReaders.nextString(json);
+                        break;
+                    case "ReleaseNotes":
+                        releaseNotes = JsonReaders.nextString(json);
+                        break;
+                    case "Version":
+                        version = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Release(id, projectId, channelId, releaseNotes, version);
+        }
+
+        @Override
+        public void write(JsonWriter json, Release value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("ProjectId").value(value.getProjectId());
+            json.name("ChannelId").value(value.getChannelId());
+            json.name("ReleaseNotes").value(value.getReleaseNotes());
+            json.name("Version").value(value.getVersion());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Release value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getProjectId());
+            writeString(out, value.getChannelId());
+            writeString(out, value.getReleaseNotes());
+            writeString(out, value.getVersion());
+        }
+
+        @Override
+        public Release decode(DataInput in) throws IOException {
+            return new Release(readString(in), readString(in), readString(in), readString(in), readString(in));
+        }
+    }
+
+    private static final class TaskCodec implements Codec<Task> {
+        @Override
+        public Task read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String description = null;
+            String state = null;
+            boolean isCompleted = false;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Description":
+                        description = JsonReaders.nextString(json);
+                        break;
+                    case "State":
+                        state = JsonReaders.nextString(json);
+                        break;
+                    case "IsCompleted":
+                        isCompleted = json.nextBoolean();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Task(id, name, description, state, isCompleted);
+        }
+
+        @Override
+        public void write(JsonWriter json, Task value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Description").value(value.getDescription());
+            json.name("State").value(value.getState());
+            json.name("IsCompleted").value(value.getIsCompleted());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Task value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getDescription());
+            writeString(out, value.getState());
+            out.writeBoolean(value.getIsCompleted());
+        }
+
+        @Override
+        public Task decode(DataInput in) throws IOException {
+            return new Task(readString(in), readString(in), readString(in), readString(in), in.readBoolean());
+        }
+    }
+
+    private static final class TagCodec implements Codec<Tag> {
+        @Override
+        public Tag read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String canonicalName = null;
+            int sortOrder = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "CanonicalTagName":
+                        canonicalName = JsonReaders.nextString(json);
+                        break;
+                    case "SortOrder":
+                        sortOrder = json.nextInt();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Tag(id, name, canonicalName, sortOrder);
+        }
+
+        @Override
+        public void write(JsonWriter json, Tag value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("CanonicalTagName").value(value.getCanonicalName());
+            json.name("SortOrder").value(value.getSortOrder());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Tag value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getCanonicalName());
+            writeInt(out, value.getSortOrder());
+        }
+
+        @Override
+        public Tag decode(DataInput in) throws IOException {
+            return new Tag(readString(in), readString(in), readString(in), readInt(in));
+        }
+    }
+
+    private static final class TagSetCodec implements Codec<TagSet> {
+        @Override
+        public TagSet read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String description = null;
+            int sortOrder = 0;
+            Set<Tag> tags = newTagSet();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Description":
+                        description = JsonReaders.nextString(json);
+                        break;
+                    case "SortOrder":
+                        sortOrder = json.nextInt();
+                        break;
+                    case "Tags":
+                        tags.addAll(JsonReaders.readArray(json, TAG::read));
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new TagSet(id, name, description, sortOrder, tags);
+        }
+
+        @Override
+        public void write(JsonWriter json, TagSet value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Description").value(value.getDescription());
+            json.name("SortOrder").value(value.getSortOrder());
+            json.name("Tags").beginArray();
+            for (Tag tag : value.getTags()) {
+                TAG.write(json, tag);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, TagSet value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getDescription());
+            writeInt(out, value.getSortOrder());
+            encodeAll(out, value.getTags(), TAG);
+        }
+
+        @Override
+        public TagSet decode(DataInput in) throws IOException {
+            return new TagSet(readString(in), readString(in), readString(in), readInt(in), decodeAll(in, TAG, newTagSet()));
+        }
+    }
+
+    private static final class VariableCodec implements Codec<Variable> {
+        @Override
+        public Variable read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String value = null;
+            String description = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Value":
+                        value = JsonReaders.nextValueAsString(json);
+                        break;
+                    case "Description":
+                        description = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new Variable(id, name, value, description);
+        }
+
+        @Override
+        public void write(JsonWriter json, Variable value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Value").value(value.getValue());
+            json.name("Description").value(value.getDescription());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, Variable value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getValue());
+            writeString(out, value.getDescription());
+        }
+
+        @Override
+        public Variable decode(DataInput in) throws IOException {
+            return new Variable(readString(in), readString(in), readString(in), readString(in));
+        }
+    }
+
+    /**
+     * Selected packages are read both from deployment process templates, which give the version last used,
+     * and from releases, which give the version selected. They are written as a release selects them,
+     * naming the step both as StepName and as ActionName for older servers; the package id is only kept
+     * in the binary form.
+     */
+    private static final class SelectedPackageCodec implements Codec<SelectedPackage> {
+        @Override
+        public SelectedPackage read(JsonReader json) throws IOException {
+            String stepName = null;
+            String actionName = null;
+            String packageId = null;
+            String packageReferenceName = null;
+            String version = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "StepName":
+                        stepName = JsonReaders.nextString(json);
+                        break;
+                    case "ActionName":
+                        actionName = JsonReaders.nextString(json);
+                        break;
+                    case "PackageId":
+                        packageId = JsonReaders.nextString(json);
+                        break;
+                    case "PackageReferenceName":
+                        packageReferenceName = JsonReaders.nextString(json);
+                        break;
+                    case "Version":
+                    case "VersionSelectedLastRelease":
+                        version = JsonReaders.nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new SelectedPackage(stepName != null ? stepName : actionName, packageId, packageReferenceName, version);
+        }
+
+        @Override
+        public void write(JsonWriter json, SelectedPackage value) throws IOException {
+            json.beginObject();
+            json.name("StepName").value(value.getStepName());
+            json.name("ActionName").value(value.getStepName());
+            json.name("PackageReferenceName").value(value.getPackageReferenceName());
+            json.name("Version").value(value.getVersion());
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, SelectedPackage value) throws IOException {
+            writeString(out, value.getStepName());
+            writeString(out, value.getPackageId());
+            writeString(out, value.getPackageReferenceName());
+            writeString(out, value.getVersion());
+        }
+
+        @Override
+        public SelectedPackage decode(DataInput in) throws IOException {
+            return new SelectedPackage(readString(in), readString(in), readString(in), readString(in));
+        }
+    }
+
+    private static final class DeploymentProcessStepActionCodec implements Codec<DeploymentProcessStepAction> {
+        @Override
+        public DeploymentProcessStepAction read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            String actionType = null;
+            Map<String, String> properties = new HashMap<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "ActionType":
+                        actionType = JsonReaders.nextString(json);
+                        break;
+                    case "Properties":
+                        json.beginObject();
+                        while (json.hasNext()) {
+                            String key = json.nextName();
+                            properties.put(key, JsonReaders.nextValueAsString(json));
+                        }
+                        json.endObject();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new DeploymentProcessStepAction(id, name, actionType, properties);
+        }
+
+        @Override
+        public void write(JsonWriter json, DeploymentProcessStepAction value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("ActionType").value(value.getActionType());
+            json.name("Properties").beginObject();
+            for (Map.Entry<String, String> property : value.getProperties().entrySet()) {
+                json.name(property.getKey()).value(property.getValue());
+            }
+            json.endObject();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, DeploymentProcessStepAction value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            writeString(out, value.getActionType());
+            writeVarInt(out, value.getProperties().size());
+            for (Map.Entry<String, String> property : value.getProperties().entrySet()) {
+                writeString(out, property.getKey());
+                writeString(out, property.getValue());
+            }
+        }
+
+        @Override
+        public DeploymentProcessStepAction decode(DataInput in) throws IOException {
+            String id = readString(in);
+            String name = readString(in);
+            String actionType = readString(in);
+            int count = readVarInt(in);
+            Map<String, String> properties = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                properties.put(key, readString(in));
+            }
+            return new DeploymentProcessStepAction(id, name, actionType, properties);
+        }
+    }
+
+    private static final class DeploymentProcessStepCodec implements Codec<DeploymentProcessStep> {
+        @Override
+        public DeploymentProcessStep read(JsonReader json) throws IOException {
+            String id = null;
+            String name = null;
+            Set<DeploymentProcessStepAction> actions = new HashSet<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "Name":
+                        name = JsonReaders.nextString(json);
+                        break;
+                    case "Actions":
+                        actions.addAll(JsonReaders.readArray(json, DEPLOYMENT_PROCESS_STEP_ACTION::read));
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new DeploymentProcessStep(id, name, actions);
+        }
+
+        @Override
+        public void write(JsonWriter json, DeploymentProcessStep value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("Name").value(value.getName());
+            json.name("Actions").beginArray();
+            for (DeploymentProcessStepAction action : value.getActions()) {
+                DEPLOYMENT_PROCESS_STEP_ACTION.write(json, action);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, DeploymentProcessStep value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getName());
+            encodeAll(out, value.getActions(), DEPLOYMENT_PROCESS_STEP_ACTION);
+        }
+
+        @Override
+        public DeploymentProcessStep decode(DataInput in) throws IOException {
+            return new DeploymentProcessStep(readString(in), readString(in), decodeAll(in, DEPLOYMENT_PROCESS_STEP_ACTION, new HashSet<>()));
+        }
+    }
+
+    private static final class DeploymentProcessCodec implements Codec<DeploymentProcess> {
+        @Override
+        public DeploymentProcess read(JsonReader json) throws IOException {
+            String id = null;
+            String projectId = null;
+            Set<DeploymentProcessStep> steps = new HashSet<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Id":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "ProjectId":
+                        projectId = JsonReaders.nextString(json);
+                        break;
+                    case "Steps":
+                        steps.addAll(JsonReaders.readArray(json, DEPLOYMENT_PROCESS_STEP::read));
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new DeploymentProcess(id, projectId, steps);
+        }
+
+        @Override
+        public void write(JsonWriter json, DeploymentProcess value) throws IOException {
+            json.beginObject();
+            json.name("Id").value(value.getId());
+            json.name("ProjectId").value(value.getProjectId());
+            json.name("Steps").beginArray();
+            for (DeploymentProcessStep step : value.getSteps()) {
+                DEPLOYMENT_PROCESS_STEP.write(json, step);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, DeploymentProcess value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getProjectId());
+            encodeAll(out, value.getSteps(), DEPLOYMENT_PROCESS_STEP);
+        }
+
+        @Override
+        public DeploymentProcess decode(DataInput in) throws IOException {
+            return new DeploymentProcess(readString(in), readString(in), decodeAll(in, DEPLOYMENT_PROCESS_STEP, new HashSet<>()));
+        }
+    }
+
+    /**
+     * The server's template does not name its project; it is only read when the JSON was written by this codec.
+     */
+    private static final class DeploymentProcessTemplateCodec implements Codec<DeploymentProcessTemplate> {
+        @Override
+        public DeploymentProcessTemplate read(JsonReader json) throws IOException {
+            String id = null;
+            String projectId = null;
+            Set<SelectedPackage> packages = new HashSet<>();
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "DeploymentProcessId":
+                        id = JsonReaders.nextString(json);
+                        break;
+                    case "ProjectId":
+                        projectId = JsonReaders.nextString(json);
+                        break;
+                    case "Packages":
+                        packages.addAll(JsonReaders.readArray(json, SELECTED_PACKAGE::read));
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new DeploymentProcessTemplate(id, projectId, Collections.unmodifiableSet(packages));
+        }
+
+        @Override
+        public void write(JsonWriter json, DeploymentProcessTemplate value) throws IOException {
+            json.beginObject();
+            json.name("DeploymentProcessId").value(value.getId());
+            json.name("ProjectId").value(value.getProjectId());
+            json.name("Packages").beginArray();
+            for (SelectedPackage selectedPackage : value.getSteps()) {
+                SELECTED_PACKAGE.write(json, selectedPackage);
+            }
+            json.endArray();
+            json.endObject();
+        }
+
+        @Override
+        public void encode(DataOutput out, DeploymentProcessTemplate value) throws IOException {
+            writeString(out, value.getId());
+            writeString(out, value.getProjectId());
+            encodeAll(out, value.getSteps(), SELECTED_PACKAGE);
+        }
+
+        @Override
+        public DeploymentProcessTemplate decode(DataInput in) throws IOException {
+            return new DeploymentProcessTemplate(readString(in), readString(in),
+                    Collections.unmodifiableSet(decodeAll(in, SELECTED_PACKAGE, new HashSet<>())));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.octopusdeploy.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many connections an {@link AuthenticatedWebClient} uses at once to its Octopus server.
+ * This is not a connection pool: it holds no sockets. Sockets are kept alive and reused by the JDK keep-alive
+ * cache, which is shared by every server in the JVM, only keeps http.maxConnections idle sockets per server
+ * (5 by default), and evicts them once they have been idle for longer than the server's Keep-Alive timeout.
+ * Closing the limiter stops new requests, but does not close sockets already in the JDK cache.
+ */
+public class ConnectionLimiter implements Closeable {
+    private final int maxConnectionsPerRoute;
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    /**
+     * Create a new limiter.
+     * @param maxConnectionsPerRoute the maximum number of connections that may be in use at once
+     */
+    public ConnectionLimiter(int maxConnectionsPerRoute) {
+        if (maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("The maximum number of connections must be greater than zero.");
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.permits = new Semaphore(maxConnectionsPerRoute, true);
+    }
+
+    /**
+     * Waits until a connection may be used. Every successful call must be paired with {@link #release()}.
+     * @param deadline how long to wait at most
+     * @throws IOException if the limiter has been closed
+     * @throws DeadlineExceededException if no connection becomes free before the deadline
+     * @throws InterruptedIOException if the calling thread is interrupted while waiting
+     */
+    public void acquire(Deadline deadline) throws IOException {
+        ensureOpen();
+        try {
+            if (!deadline.isBounded()) {
+                permits.acquire();
+            } else if (!permits.tryAcquire(deadline.remainingMillis(), TimeUnit.MILLISECONDS)) {
+                throw new DeadlineExceededException("Deadline exceeded while waiting for a connection to the Octopus server.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to the Octopus server.");
+        }
+        if (closed) {
+            permits.release();
+            ensureOpen();
+        }
+    }
+
+    /**
+     * Marks a connection allowed by {@link #acquire(Deadline)} as no longer in use.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * The number of connections currently in use.
+     * @return the in-use connection count
+     */
+    public int getConnectionsInUse() {
+        return maxConnectionsPerRoute - permits.availablePermits();
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops allowing new connections. Requests that already use a connection run to completion.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The client for this Octopus server has been shut down.");
+        }
+    }
+}
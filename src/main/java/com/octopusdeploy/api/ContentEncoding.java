@@ -0,0 +1,137 @@
+package com.octopusdeploy.api;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiates and decodes compressed response bodies.
+ * Bodies are decompressed as they are read, so a compressed response is never held in memory as a whole.
+ */
+final class ContentEncoding {
+    static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Whether the content encoding names a compression this class can decode.
+     * @param contentEncoding the Content-Encoding response header, may be null
+     * @return true for gzip and deflate
+     */
+    static boolean isCompressed(String contentEncoding) {
+        return isGzip(contentEncoding) || isDeflate(contentEncoding);
+    }
+
+    /**
+     * Wraps a response body in a stream that decodes it and counts its bytes.
+     * @param contentEncoding the Content-Encoding response header, may be null
+     * @param body the body as received from the server
+     * @param metrics the metrics to record byte counts in
+     * @return the decoded body
+     * @throws IOException if the compressed stream header can not be read
+     */
+    static InputStream decode(String contentEncoding, InputStream body, WebClientMetrics metrics) throws IOException {
+        boolean compressed = isCompressed(contentEncoding);
+        metrics.recordResponse(compressed);
+        if (!compressed) {
+            return body;
+        }
+        InputStream wire = new CountingInputStream(body, metrics::addCompressedBytes);
+        InputStream decoded;
+        if (isGzip(contentEncoding)) {
+            decoded = new GZIPInputStream(wire, BUFFER_SIZE);
+        } else {
+            decoded = inflate(wire);
+        }
+        return new CountingInputStream(decoded, metrics::addDecompressedBytes);
+    }
+
+    /**
+     * "deflate" is specified as a zlib stream, but some servers send raw deflate data, so look at the
+     * first two bytes to pick the right decoder.
+     */
+    private static InputStream inflate(InputStream wire) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(wire, BUFFER_SIZE);
+        buffered.mark(2);
+        int cmf = buffered.read();
+        int flg = buffered.read();
+        buffered.reset();
+        boolean zlibWrapped = cmf >= 0 && flg >= 0 && (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        return new InflaterInputStream(buffered, new Inflater(!zlibWrapped), BUFFER_SIZE);
+    }
+
+    private static boolean isGzip(String contentEncoding) {
+        return "gzip".equalsIgnoreCase(trim(contentEncoding)) || "x-gzip".equalsIgnoreCase(trim(contentEncoding));
+    }
+
+    private static boolean isDeflate(String contentEncoding) {
+        return "deflate".equalsIgnoreCase(trim(contentEncoding));
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Reports the number of bytes read through it once the stream is closed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongConsumer onClose;
+        private long count;
+        private boolean closed;
+
+        private CountingInputStream(InputStream in, LongConsumer onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                onClose.accept(count);
+            }
+            super.close();
+        }
+    }
+}
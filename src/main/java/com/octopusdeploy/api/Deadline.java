@@ -0,0 +1,145 @@
+package com.octopusdeploy.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which an Octopus API call, or a group of calls, must have completed.
+ * Deadlines are immutable and can be shared between threads.
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+
+    private final long expiresAtNanos;
+    private final boolean bounded;
+
+    private Deadline(long expiresAtNanos, boolean bounded) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * A deadline that never expires.
+     * @return the unbounded deadline
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * A deadline that expires after the given duration from now.
+     * @param duration the time budget; zero or less means the deadline has already expired
+     * @param unit the unit of the duration
+     * @return the deadline
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(Math.max(0, duration)), true);
+    }
+
+    /**
+     * Whether this deadline ever expires.
+     * @return false for {@link #none()}
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Whether the deadline has passed.
+     * @return true once no time remains
+     */
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    /**
+     * The time left before the deadline expires.
+     * @return the remaining milliseconds, zero once expired, or {@link Long#MAX_VALUE} when unbounded
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * Returns whichever of this deadline and the other expires first.
+     * @param other another deadline
+     * @return the earlier deadline
+     */
+    public Deadline min(Deadline other) {
+        if (!other.bounded) {
+            return this;
+        }
+        if (!bounded) {
+            return other;
+        }
+        return expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+
+    /**
+     * Caps a timeout so that it does not run past this deadline.
+     * @param timeoutMillis a timeout in milliseconds, where zero means no timeout
+     * @return the smaller of the timeout and the remaining time, at least one millisecond
+     *         (as zero would disable the timeout), or zero when neither is bounded
+     */
+    int clampTimeout(int timeoutMillis) {
+        if (!bounded) {
+            return timeoutMillis;
+        }
+        long remaining = Math.max(1, Math.min(remainingMillis(), Integer.MAX_VALUE));
+        return timeoutMillis > 0 ? (int)Math.min(timeoutMillis, remaining) : (int)remaining;
+    }
+
+    /**
+     * Throws if the deadline has passed.
+     * @param operation a description of the operation, used in the exception message
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public void check(String operation) throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException(String.format("Deadline exceeded while %s.", operation));
+        }
+    }
+
+    /**
+     * Wraps a stream so that reading from it fails once this deadline has passed.
+     * Socket read timeouts only bound the wait for each chunk, so this stops a server that
+     * trickles a body slowly from holding the caller past its deadline.
+     * @param in the stream to guard
+     * @param operation a description of the operation, used in the exception message
+     * @return the guarded stream, or the stream itself when this deadline is unbounded
+     */
+    InputStream guard(InputStream in, final String operation) {
+        if (!bounded) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                check(operation);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                check(operation);
+                return super.read(b, off, len);
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                check(operation);
+                return super.skip(n);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline [remainingMillis=" + remainingMillis() + "]" : "Deadline [none]";
+    }
+}
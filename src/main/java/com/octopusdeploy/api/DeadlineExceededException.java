@@ -0,0 +1,14 @@
+package com.octopusdeploy.api;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown when an Octopus API call does not complete within its {@link Deadline}.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.DeploymentProcess;
 import com.octopusdeploy.api.data.DeploymentProcessStep;
 import com.octopusdeploy.api.data.DeploymentProcessStepAction;
@@ -7,17 +8,15 @@ import com.octopusdeploy.api.data.DeploymentProcessTemplate;
 import com.octopusdeploy.api.data.SelectedPackage;
 import com.octopusdeploy.api.data.Variable;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
-import org.apache.commons.lang.StringUtils;
+import java.util.concurrent.CompletableFuture;
 
 public class DeploymentsApi {
-    private final static String UTF8 = "UTF-8";
     private final AuthenticatedWebClient webClient;
 
     public DeploymentsApi(AuthenticatedWebClient webClient) {
@@ -46,26 +45,26 @@ public class DeploymentsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public String executeDeployment(String releaseId, String environmentId, String tenantId, Set<Variable> variables) throws IOException {
-        StringBuilder jsonBuilder = new StringBuilder();
-        jsonBuilder.append(String.format("{EnvironmentId:\"%s\",ReleaseId:\"%s\"", environmentId, releaseId));
-
-        if (tenantId != null && !tenantId.isEmpty()) {
-            jsonBuilder.append(String.format(",TenantId:\"%s\"", tenantId));
-        }
-        if (variables != null && !variables.isEmpty()) {
-            jsonBuilder.append(",FormValues:{");
-            Set<String> variablesStrings = new HashSet<String>();
-            for (Variable v : variables) {
-                variablesStrings.add(String.format("\"%s\":\"%s\"", v.getId(), v.getValue()));
+        RequestBody body = RequestBody.json(json -> {
+            json.beginObject();
+            json.name("EnvironmentId").value(environmentId);
+            json.name("ReleaseId").value(releaseId);
+            if (tenantId != null && !tenantId.isEmpty()) {
+                json.name("TenantId").value(tenantId);
             }
-            jsonBuilder.append(StringUtils.join(variablesStrings, ","));
-            jsonBuilder.append("}");
-        }
-        jsonBuilder.append("}");
-        String json = jsonBuilder.toString();
-
-        byte[] data = json.getBytes(Charset.forName(UTF8));
-        AuthenticatedWebClient.WebResponse response = webClient.post("deployments", data);
+            if (variables != null && !variables.isEmpty()) {
+                json.name("FormValues").beginObject();
+                Set<String> written = new HashSet<>();
+                for (Variable v : variables) {
+                    if (written.add(v.getId())) {
+                        json.name(v.getId()).value(v.getValue());
+                    }
+                }
+                json.endObject();
+            }
+            json.endObject();
+        });
+        AuthenticatedWebClient.WebResponse response = webClient.post("deployments", body);
         if (response.isErrorCode()) {
             String errorMsg = ErrorParser.getErrorsFromResponse(response.getContent());
             throw new IOException(String.format("Code %s - %n%s", response.getCode(), errorMsg));
@@ -85,33 +84,70 @@ public class DeploymentsApi {
      */
     public String getPortalUrlForDeployment(String projectId, String releaseVersion, String environmentId, String tenantId) throws IllegalArgumentException, IOException {
         //lets only take the first 25, we know it will be a fairly recent deployment
-        String urlFilter = "?take=25" + "&projects=" + projectId + "&environments=" + environmentId;
-
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("take", "25");
+        parameters.put("projects", projectId);
+        parameters.put("environments", environmentId);
         if (tenantId != null && !tenantId.isEmpty()) {
-            urlFilter += "&tenants=" + tenantId;
+            parameters.put("tenants", tenantId);
         }
+        return webClient.get("deployments", parameters, DEPLOYMENT_LINKS_READER).get(releaseVersion);
+    }
 
-        AuthenticatedWebClient.WebResponse response = webClient.get("deployments" + urlFilter);
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
+    /**
+     * Reads a page of deployments as the portal link of the most recent deployment of each release version,
+     * skipping everything else about them.
+     */
+    private static final ResponseReader<Map<String, String>> DEPLOYMENT_LINKS_READER = reader -> {
+        Map<String, String> links = new HashMap<>();
+        for (Map.Entry<Set<String>, String> deployment : JsonReaders.readPage(new JsonReader(reader), DeploymentsApi::readDeploymentLink).getItems()) {
+            for (String version : deployment.getKey()) {
+                links.putIfAbsent(version, deployment.getValue());
+            }
         }
+        return Collections.unmodifiableMap(links);
+    };
 
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json.getJSONArray("Items")) {
+    /**
+     * Reads a deployment as the versions it changed and its portal link.
+     */
+    private static Map.Entry<Set<String>, String> readDeploymentLink(JsonReader json) throws IOException {
+        Set<String> versions = new HashSet<>();
+        String web = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "Changes":
+                    versions.addAll(JsonReaders.readArray(json, change -> readStringField(change, "Version")));
+                    break;
+                case "Links":
+                    web = readStringField(json, "Web");
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new AbstractMap.SimpleImmutableEntry<>(versions, web);
+    }
 
-            JSONObject jsonObj = (JSONObject)obj;
-            for (Object change : jsonObj.getJSONArray("Changes")) {
-                String version = ((JSONObject)change).getString("Version");
-                if(version.equals(releaseVersion))
-                {
-                    JSONObject links = jsonObj.getJSONObject("Links");
-                    return links.getString("Web");
-                }
+    /**
+     * Reads one string field of an object, skipping the others.
+     */
+    private static String readStringField(JsonReader json, String field) throws IOException {
+        String value = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals(field)) {
+                value = JsonReaders.nextString(json);
+            } else {
+                json.skipValue();
             }
         }
-        return null;
+        json.endObject();
+        return value;
     }
-    
+
     /**
      * Return a representation of a deployment process for a given project.
      * @param projectId the id of the project to get the process for.
@@ -120,41 +156,12 @@ public class DeploymentsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public DeploymentProcess getDeploymentProcessForProject(String projectId) throws IllegalArgumentException, IOException {
-        // TODO: refactor/method extract/clean up
-        AuthenticatedWebClient.WebResponse response = webClient.get("deploymentprocesses/deploymentprocess-" + projectId);
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        JSONArray stepsJson = json.getJSONArray("Steps");
-        HashSet<DeploymentProcessStep> deploymentProcessSteps = new HashSet<DeploymentProcessStep>();
-        for (Object stepObj : stepsJson) {
-            JSONObject jsonStepObj = (JSONObject)stepObj;
-            HashSet<DeploymentProcessStepAction> deploymentProcessStepActions = new HashSet<DeploymentProcessStepAction>();
-
-            JSONArray actionsJson = jsonStepObj.getJSONArray("Actions");
-            for (Object actionObj : actionsJson) {
-                JSONObject jsonActionObj = (JSONObject)actionObj;
-                JSONObject propertiesJson = jsonActionObj.getJSONObject("Properties");
-                HashMap<String, String> properties = new HashMap<String, String>();
-                for (Object key : propertiesJson.keySet()) {
-                    String keyString = key.toString();
-                    properties.put(keyString, propertiesJson.getString(keyString));
-                }
-                String dpsaId = jsonActionObj.getString("Id");
-                String dpsaName = jsonActionObj.getString("Name");
-                String dpsaType = jsonActionObj.getString("ActionType");
-                deploymentProcessStepActions.add(new DeploymentProcessStepAction(dpsaId, dpsaName, dpsaType, properties));
-            }
-            String dpsId = jsonStepObj.getString("Id");
-            String dpsName = jsonStepObj.getString("Name");
-            deploymentProcessSteps.add(new DeploymentProcessStep(dpsId, dpsName, deploymentProcessStepActions));
-        }
-        String dpId = json.getString("Id");
-        String dpProject = json.getString("ProjectId");
-        return new DeploymentProcess(dpId, dpProject, deploymentProcessSteps);
+        return webClient.get("deploymentprocesses/deploymentprocess-" + projectId, null, DEPLOYMENT_PROCESS_READER);
     }
 
+    private static final ResponseReader<DeploymentProcess> DEPLOYMENT_PROCESS_READER =
+            reader -> Codecs.DEPLOYMENT_PROCESS.read(new JsonReader(reader));
+
     /**
      * Return a representation of a deployment process for a given project.
      * @param projectId project id
@@ -163,25 +170,53 @@ public class DeploymentsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public DeploymentProcessTemplate getDeploymentProcessTemplateForProject(String projectId) throws IllegalArgumentException, IOException {
-        AuthenticatedWebClient.WebResponse response = webClient.get("deploymentprocesses/deploymentprocess-" + projectId + "/template");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
+        DeploymentProcessTemplate template = webClient.getCached("deploymentprocesses/deploymentprocess-" + projectId + "/template", null, DEPLOYMENT_PROCESS_TEMPLATE_READER);
+        // the template itself does not name its project
+        return new DeploymentProcessTemplate(template.getId(), projectId, template.getSteps());
+    }
 
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        Set<SelectedPackage> packages = new HashSet<SelectedPackage>();
-        String deploymentId = json.getString("DeploymentProcessId");
-        JSONArray pkgsJson = json.getJSONArray("Packages");
-        for (Object pkgObj : pkgsJson) {
-            JSONObject pkgJsonObj = (JSONObject) pkgObj;
-            String name = pkgJsonObj.getString("StepName");
-            String packageId = pkgJsonObj.getString("PackageId");
-            String packageReferenceName = pkgJsonObj.getString("PackageReferenceName");
-            String version = pkgJsonObj.getString("VersionSelectedLastRelease");
-            packages.add(new SelectedPackage(name, packageId, packageReferenceName, version));
-        }
+    private static final ResponseReader<DeploymentProcessTemplate> DEPLOYMENT_PROCESS_TEMPLATE_READER =
+            reader -> Codecs.DEPLOYMENT_PROCESS_TEMPLATE.read(new JsonReader(reader));
+
+    /**
+     * Asynchronous variant of {@link #executeDeployment(String, String, String, Set)}, run on the Octopus server's API executor.
+     * @param releaseId the id of the release to deploy
+     * @param environmentId the environment to deploy to
+     * @param tenantId the tenant to deploy to
+     * @param variables the prompted variables for the deployment
+     * @return a future completed with the content of the response
+     */
+    public CompletableFuture<String> executeDeploymentAsync(String releaseId, String environmentId, String tenantId, Set<Variable> variables) {
+        return webClient.supplyAsync(() -> executeDeployment(releaseId, environmentId, tenantId, variables));
+    }
 
-        DeploymentProcessTemplate template = new DeploymentProcessTemplate(deploymentId, projectId, packages);
-        return template;
+    /**
+     * Asynchronous variant of {@link #getPortalUrlForDeployment(String, String, String, String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @param releaseVersion the version of the release
+     * @param environmentId the id of the environment
+     * @param tenantId the id of the tenant, may be null
+     * @return a future completed with the portal URL of the deployment, relative to the server
+     */
+    public CompletableFuture<String> getPortalUrlForDeploymentAsync(String projectId, String releaseVersion, String environmentId, String tenantId) {
+        return webClient.supplyAsync(() -> getPortalUrlForDeployment(projectId, releaseVersion, environmentId, tenantId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getDeploymentProcessForProject(String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @return a future completed with the deployment process of the project
+     */
+    public CompletableFuture<DeploymentProcess> getDeploymentProcessForProjectAsync(String projectId) {
+        return webClient.supplyAsync(() -> getDeploymentProcessForProject(projectId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getDeploymentProcessTemplateForProject(String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @return a future completed with the deployment process template of the project
+     */
+    public CompletableFuture<DeploymentProcessTemplate> getDeploymentProcessTemplateForProjectAsync(String projectId) {
+        return webClient.supplyAsync(() -> getDeploymentProcessTemplateForProject(projectId));
     }
 }
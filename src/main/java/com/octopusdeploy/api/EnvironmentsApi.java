@@ -1,14 +1,13 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Environment;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
-
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 
 public class EnvironmentsApi {
     private final static String UTF8 = "UTF-8";
@@ -25,20 +24,28 @@ public class EnvironmentsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Set<Environment> getAllEnvironments() throws IllegalArgumentException, IOException {
+        return webClient.getCached("environments/all", null, ALL_ENVIRONMENTS_READER);
+    }
+
+    private static final ResponseReader<Set<Environment>> ALL_ENVIRONMENTS_READER = reader -> {
         TreeSet<Environment> environments = new TreeSet<>(Comparator.comparing(Environment::getName).thenComparing(Environment::getId));
-        AuthenticatedWebClient.WebResponse response = webClient.get("environments/all");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONArray json = (JSONArray)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            String description = jsonObj.getString("Description");
-            environments.add(new Environment(id, name, description));
-        }
-        return environments;
+        environments.addAll(JsonReaders.readArray(new JsonReader(reader), Codecs.ENVIRONMENT::read));
+        return Collections.unmodifiableSet(environments);
+    };
+
+    private static final ResponseReader<Page<Environment>> ENVIRONMENT_PAGE_READER =
+            reader -> JsonReaders.readPage(new JsonReader(reader), Codecs.ENVIRONMENT::read);
+
+    /**
+     * Asks the server for the environments whose names contain the given text, ignoring case,
+     * without downloading the full list of environments.
+     * @param partialName the text to search for
+     * @return the first page of matching environments
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Page<Environment> searchEnvironments(String partialName) throws IllegalArgumentException, IOException {
+        return webClient.get("environments", NameCache.searchParameters(partialName), ENVIRONMENT_PAGE_READER);
     }
 
     /**
@@ -55,6 +62,8 @@ public class EnvironmentsApi {
 
     /**
      * Get the Environment with the given name if it exists, return null otherwise.
+     * Only the environments whose names contain the name are requested, unless there are too many of them;
+     * lookups are remembered by the server's {@link NameCache}.
      * @param name The name of the Environment to find.
      * @param ignoreCase when true uses equalsIgnoreCase in the name check
      * @return The Environment with that name.
@@ -62,13 +71,37 @@ public class EnvironmentsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Environment getEnvironmentByName(String name, boolean ignoreCase) throws IllegalArgumentException, IOException {
+        return webClient.getNameCache().find(webClient.getSpaceId(), "environments/all", Codecs.ENVIRONMENT,
+                this::getAllEnvironments, this::searchEnvironments, Environment::getName, name, ignoreCase);
+    }
+
+    /**
+     * Loads all environments into the server's {@link NameCache}, so their names are found without asking the server.
+     * @return all environments in the space
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Set<Environment> prefetchNames() throws IllegalArgumentException, IOException {
         Set<Environment> environments = getAllEnvironments();
-        for (Environment env : environments) {
-            if ((ignoreCase && name.equalsIgnoreCase(env.getName())) ||
-               (!ignoreCase && name.equals(env.getName()))) {
-                return env;
-            }
-        }
-        return null;
+        webClient.getNameCache().put(webClient.getSpaceId(), "environments/all", Codecs.ENVIRONMENT, environments, Environment::getName);
+        return environments;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAllEnvironments()}, run on the Octopus server's API executor.
+     * @return a future completed with all environments on the Octopus server
+     */
+    public CompletableFuture<Set<Environment>> getAllEnvironmentsAsync() {
+        return webClient.supplyAsync(() -> getAllEnvironments());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getEnvironmentByName(String, boolean)}, run on the Octopus server's API executor.
+     * @param name The name of the Environment to find.
+     * @param ignoreCase when true uses equalsIgnoreCase in the name check
+     * @return a future completed with the environment with that name, or null
+     */
+    public CompletableFuture<Environment> getEnvironmentByNameAsync(String name, boolean ignoreCase) {
+        return webClient.supplyAsync(() -> getEnvironmentByName(name, ignoreCase));
     }
 }
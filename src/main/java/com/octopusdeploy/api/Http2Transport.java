@@ -0,0 +1,280 @@
+package com.octopusdeploy.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.net.ssl.SSLContext;
+
+/**
+ * An {@link HttpTransport} that multiplexes requests over a single HTTP/2 connection using the JDK HttpClient.
+ * The plugin is built for Java 8, so the client is driven reflectively and is only available when
+ * Jenkins runs on Java 11 or later; see {@link #isSupported()}.
+ * Servers that do not negotiate HTTP/2 are transparently spoken to over HTTP/1.1 by the same client.
+ */
+public class Http2Transport implements HttpTransport {
+    private static final JdkHttpClient JDK_HTTP_CLIENT = JdkHttpClient.load();
+
+    private final Object httpClient;
+    private volatile boolean closed;
+
+    /**
+     * Whether the running JVM provides the JDK HttpClient.
+     * @return true when this transport can be created
+     */
+    public static boolean isSupported() {
+        return JDK_HTTP_CLIENT != null;
+    }
+
+    /**
+     * Create a new transport with its own HTTP/2 client.
+     * @param options transport options for connections to the Octopus server
+     * @throws UnsupportedOperationException when the JDK HttpClient is not available
+     * @throws IllegalArgumentException when the TLS options are not valid
+     */
+    public Http2Transport(WebClientOptions options) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("The HTTP/2 transport requires Java 11 or later.");
+        }
+        this.httpClient = JDK_HTTP_CLIENT.newClient(options.getConnectTimeoutMillis(), SslContextFactory.create(options));
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        if (closed) {
+            throw new IOException("The HTTP/2 transport for this Octopus server has been shut down.");
+        }
+        URI uri;
+        try {
+            uri = request.getUrl().toURI();
+        } catch (URISyntaxException ex) {
+            throw new IOException(String.format("Invalid request URL '%s'.", request.getUrl()), ex);
+        }
+        Object response = JDK_HTTP_CLIENT.send(httpClient, uri, request);
+        return new Http2Response(response);
+    }
+
+    /**
+     * Stops accepting new requests. On Java 21 and later the underlying client is also shut down once
+     * requests in flight have completed; on earlier versions it is released when no longer referenced.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        JDK_HTTP_CLIENT.shutdown(httpClient);
+    }
+
+    private static final class Http2Response implements TransportResponse {
+        private final Object response;
+        private final int code;
+        private final InputStream body;
+
+        private Http2Response(Object response) throws IOException {
+            this.response = response;
+            this.code = JDK_HTTP_CLIENT.statusCode(response);
+            this.body = JDK_HTTP_CLIENT.body(response);
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return JDK_HTTP_CLIENT.header(response, name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Reflective bindings to the java.net.http API.
+     */
+    private static final class JdkHttpClient {
+        private final Method newClientBuilder;
+        private final Method builderVersion;
+        private final Method builderConnectTimeout;
+        private final Method builderSslContext;
+        private final Object versionHttp2;
+        private final Method builderBuild;
+        private final Method clientShutdown;
+        private final Method newRequestBuilder;
+        private final Method requestHeader;
+        private final Method requestMethod;
+        private final Method requestTimeout;
+        private final Method requestBuild;
+        private final Method noBody;
+        private final Method ofByteArray;
+        private final Object bodyHandler;
+        private final Method send;
+        private final Method statusCode;
+        private final Method responseBody;
+        private final Method responseHeaders;
+        private final Method firstValue;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private JdkHttpClient() throws ReflectiveOperationException {
+            Class<?> clientClass = Class.forName("java.net.http.HttpClient");
+            Class<?> clientBuilderClass = Class.forName("java.net.http.HttpClient$Builder");
+            Class<?> versionClass = Class.forName("java.net.http.HttpClient$Version");
+            Class<?> requestClass = Class.forName("java.net.http.HttpRequest");
+            Class<?> requestBuilderClass = Class.forName("java.net.http.HttpRequest$Builder");
+            Class<?> bodyPublishersClass = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+            Class<?> bodyPublisherClass = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+            Class<?> responseClass = Class.forName("java.net.http.HttpResponse");
+            Class<?> bodyHandlersClass = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+            Class<?> bodyHandlerClass = Class.forName("java.net.http.HttpResponse$BodyHandler");
+            Class<?> headersClass = Class.forName("java.net.http.HttpHeaders");
+
+            newClientBuilder = clientClass.getMethod("newBuilder");
+            builderVersion = clientBuilderClass.getMethod("version", versionClass);
+            versionHttp2 = Enum.valueOf((Class<Enum>)versionClass, "HTTP_2");
+            builderConnectTimeout = clientBuilderClass.getMethod("connectTimeout", Duration.class);
+            builderSslContext = clientBuilderClass.getMethod("sslContext", SSLContext.class);
+            builderBuild = clientBuilderClass.getMethod("build");
+            clientShutdown = findMethod(clientClass, "shutdown");
+            newRequestBuilder = requestClass.getMethod("newBuilder", URI.class);
+            requestHeader = requestBuilderClass.getMethod("header", String.class, String.class);
+            requestMethod = requestBuilderClass.getMethod("method", String.class, bodyPublisherClass);
+            requestTimeout = requestBuilderClass.getMethod("timeout", Duration.class);
+            requestBuild = requestBuilderClass.getMethod("build");
+            noBody = bodyPublishersClass.getMethod("noBody");
+            ofByteArray = bodyPublishersClass.getMethod("ofByteArray", byte[].class);
+            bodyHandler = bodyHandlersClass.getMethod("ofInputStream").invoke(null);
+            send = clientClass.getMethod("send", requestClass, bodyHandlerClass);
+            statusCode = responseClass.getMethod("statusCode");
+            responseBody = responseClass.getMethod("body");
+            responseHeaders = responseClass.getMethod("headers");
+            firstValue = headersClass.getMethod("firstValue", String.class);
+        }
+
+        static JdkHttpClient load() {
+            try {
+                return new JdkHttpClient();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                Logger.getLogger(Http2Transport.class.getName()).log(Level.FINE, "The JDK HttpClient is not available", ex);
+                return null;
+            }
+        }
+
+        private static Method findMethod(Class<?> type, String name) {
+            try {
+                return type.getMethod(name);
+            } catch (NoSuchMethodException ex) {
+                return null;
+            }
+        }
+
+        Object newClient(int connectTimeoutMillis, SSLContext sslContext) {
+            try {
+                Object builder = newClientBuilder.invoke(null);
+                builderVersion.invoke(builder, versionHttp2);
+                builderSslContext.invoke(builder, sslContext);
+                if (connectTimeoutMillis > 0) {
+                    builderConnectTimeout.invoke(builder, Duration.ofMillis(connectTimeoutMillis));
+                }
+                return builderBuild.invoke(builder);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Unable to create the JDK HttpClient", ex);
+            }
+        }
+
+        Object send(Object client, URI uri, TransportRequest request) throws IOException {
+            try {
+                Object builder = newRequestBuilder.invoke(null, uri);
+                for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                    requestHeader.invoke(builder, header.getKey(), header.getValue());
+                }
+                Object publisher = request.getBody() == null
+                        ? noBody.invoke(null)
+                        : ofByteArray.invoke(null, (Object)toByteArray(request.getBody()));
+                requestMethod.invoke(builder, request.getMethod(), publisher);
+                // the request timeout bounds the wait for the response headers; the body is guarded by the deadline
+                if (request.getReadTimeoutMillis() > 0) {
+                    requestTimeout.invoke(builder, Duration.ofMillis(request.getReadTimeoutMillis()));
+                }
+                return send.invoke(client, requestBuild.invoke(builder), bodyHandler);
+            } catch (InvocationTargetException ex) {
+                throw unwrap(ex);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        /**
+         * Writes the body into memory. HTTP/2 frames the body itself, so there is nothing to gain from
+         * streaming it through a pipe and a second thread.
+         */
+        private static byte[] toByteArray(RequestBody body) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    body.getContentLength() >= 0 ? (int)body.getContentLength() : AuthenticatedWebClient.BUFFER_SIZE);
+            body.writeTo(out);
+            return out.toByteArray();
+        }
+
+        void shutdown(Object client) {
+            if (clientShutdown == null) {
+                return;
+            }
+            try {
+                clientShutdown.invoke(client);
+            } catch (ReflectiveOperationException ex) {
+                Logger.getLogger(Http2Transport.class.getName()).log(Level.FINE, "Unable to shut down the JDK HttpClient", ex);
+            }
+        }
+
+        int statusCode(Object response) {
+            return (Integer)invoke(statusCode, response);
+        }
+
+        InputStream body(Object response) {
+            return (InputStream)invoke(responseBody, response);
+        }
+
+        String header(Object response, String name) {
+            Optional<?> value = (Optional<?>)invoke(firstValue, invoke(responseHeaders, response), name);
+            return value.isPresent() ? value.get().toString() : null;
+        }
+
+        private static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private static IOException unwrap(InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                return (IOException)cause;
+            }
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                return new InterruptedIOException("Interrupted while waiting for the Octopus server to respond.");
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            return new IOException(cause);
+        }
+    }
+}
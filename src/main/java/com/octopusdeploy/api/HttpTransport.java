@@ -0,0 +1,26 @@
+package com.octopusdeploy.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sends HTTP requests on behalf of an {@link AuthenticatedWebClient}.
+ * Implementations own their connections and are shared by every request made to one Octopus server,
+ * so they must be safe for concurrent use.
+ */
+public interface HttpTransport extends Closeable {
+    /**
+     * Sends a request and returns once the response status and headers are available.
+     * The caller must close the returned response to release its connection.
+     * @param request the request to send
+     * @return the response from the server
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Stops accepting new requests. Requests already in flight are allowed to complete.
+     */
+    @Override
+    void close();
+}
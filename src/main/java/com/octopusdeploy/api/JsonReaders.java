@@ -0,0 +1,122 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for pulling values out of a streaming {@link JsonReader}.
+ */
+final class JsonReaders {
+    private JsonReaders() {
+    }
+
+    /**
+     * Reads a string value, accepting JSON null.
+     * @param json the reader positioned at a value
+     * @return the string, or null if the value was JSON null
+     * @throws IOException if the value is not a string or null
+     */
+    static String nextString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return json.nextString();
+    }
+
+    /**
+     * Reads any value as a string: strings, numbers and booleans as their text, and objects and arrays
+     * as their compact JSON.
+     * @param json the reader positioned at a value
+     * @return the string, or null if the value was JSON null
+     * @throws IOException if the JSON is malformed
+     */
+    static String nextValueAsString(JsonReader json) throws IOException {
+        switch (json.peek()) {
+            case NULL:
+                json.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(json.nextBoolean());
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                return new JsonParser().parse(json).toString();
+            default:
+                return json.nextString();
+        }
+    }
+
+    /**
+     * Reads an array, accepting JSON null as an empty array.
+     * @param json the reader positioned at the start of the array
+     * @param itemReader reads one item
+     * @param <T> the type of the items
+     * @return the items, in the order they appear
+     * @throws IOException if the JSON is not an array of the expected items
+     */
+    static <T> List<T> readArray(JsonReader json, ItemReader<T> itemReader) throws IOException {
+        List<T> items = new ArrayList<>();
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return items;
+        }
+        json.beginArray();
+        while (json.hasNext()) {
+            items.add(itemReader.read(json));
+        }
+        json.endArray();
+        return items;
+    }
+
+    /**
+     * Reads a page of a collection resource, skipping everything but its items and counts.
+     * @param json the reader positioned at the start of the page object
+     * @param itemReader reads one item
+     * @param <T> the type of the items
+     * @return the page
+     * @throws IOException if the JSON is not a page object
+     */
+    static <T> Page<T> readPage(JsonReader json, ItemReader<T> itemReader) throws IOException {
+        List<T> items = new ArrayList<>();
+        int totalResults = -1;
+        int itemsPerPage = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "Items":
+                    items = readArray(json, itemReader);
+                    break;
+                case "TotalResults":
+                    totalResults = json.nextInt();
+                    break;
+                case "ItemsPerPage":
+                    itemsPerPage = json.nextInt();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Page<>(items, totalResults < 0 ? items.size() : totalResults, itemsPerPage);
+    }
+
+    /**
+     * Reads one item of a collection.
+     * @param <T> the type of the item
+     */
+    @FunctionalInterface
+    interface ItemReader<T> {
+        /**
+         * Reads the item.
+         * @param json the reader positioned at the start of the item
+         * @return the item
+         * @throws IOException if the JSON is not an item of the expected type
+         */
+        T read(JsonReader json) throws IOException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.Project;
+import com.octopusdeploy.api.data.Space;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the projects, environments, tenants, tenant tags and channels of every space of a server into its
+ * {@link NameCache} and {@link TenantTagCache} ahead of time, so builds and configuration pages find them warm.
+ * The collections are loaded by a fixed number of workers on the server's API executor; channels are loaded
+ * once the projects they belong to are known. A collection that fails to load is skipped and counted.
+ */
+public class MetadataPrefetcher {
+    private final OctopusApi api;
+    private final int concurrency;
+
+    MetadataPrefetcher(OctopusApi api, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("The prefetch concurrency must be greater than zero.");
+        }
+        this.api = api.forSystem();
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Prefetches every space.
+     * @return how many collections were loaded and how many failed
+     * @throws IOException if the spaces can not be listed
+     */
+    public Result prefetch() throws IOException {
+        List<OctopusApi> spaceApis = new ArrayList<>();
+        if (api.getSupportsSpaces()) {
+            for (Space space : api.getSpacesApi().getAllSpaces()) {
+                spaceApis.add(api.forSpace(space.getId()));
+            }
+        } else {
+            spaceApis.add(api);
+        }
+
+        Result result = new Result();
+        List<ApiCall<?>> channels = Collections.synchronizedList(new ArrayList<>());
+        List<ApiCall<?>> collections = new ArrayList<>();
+        for (OctopusApi spaceApi : spaceApis) {
+            collections.add(() -> {
+                for (Project project : spaceApi.getProjectsApi().prefetchNames()) {
+                    channels.add(() -> spaceApi.getChannelsApi().prefetchNames(project.getId()));
+                }
+                return null;
+            });
+            collections.add(() -> spaceApi.getEnvironmentsApi().prefetchNames());
+            collections.add(() -> spaceApi.getTenantsApi().prefetchNames());
+        }
+        runAll(collections, result);
+        runAll(new ArrayList<>(channels), result);
+        return result;
+    }
+
+    private void runAll(List<ApiCall<?>> calls, Result result) throws IOException {
+        Queue<ApiCall<?>> queue = new ConcurrentLinkedQueue<>(calls);
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(concurrency, calls.size()); i++) {
+            workers.add(api.getWebClient().supplyAsync(() -> {
+                ApiCall<?> call;
+                while ((call = queue.poll()) != null) {
+                    try {
+                        call.call();
+                        result.loaded.incrementAndGet();
+                    } catch (IOException | RuntimeException ex) {
+                        result.failed.incrementAndGet();
+                        Logger.getLogger(MetadataPrefetcher.class.getName()).log(Level.FINE, "Unable to prefetch from the Octopus server", ex);
+                    }
+                }
+                return null;
+            }));
+        }
+        ApiExecutor.await(CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])));
+    }
+
+    /**
+     * The outcome of a prefetch.
+     */
+    public static class Result {
+        private final AtomicInteger loaded = new AtomicInteger();
+        /**
+         * The number of collections that were loaded.
+         * @return the count
+         */
+        public int getLoaded() {
+            return loaded.get();
+        }
+
+        private final AtomicInteger failed = new AtomicInteger();
+        /**
+         * The number of collections that could not be loaded.
+         * @return the count
+         */
+        public int getFailed() {
+            return failed.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Result [loaded=" + loaded + ", failed=" + failed + "]";
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the names of projects, environments, tenants and channels to the resources themselves without
+ * downloading and scanning the whole collection on every lookup.
+ * Where the server can filter a collection by name, a lookup asks only for the resources whose names match,
+ * and the result is remembered for the time to live. Otherwise, or when the filtered results are too many to
+ * settle the lookup, the whole collection is loaded and indexed by exact name and by case-insensitive name,
+ * separately for every space. An index is reloaded in the background once it is half way through its time
+ * to live. A name that is not in the index is looked up again once the index is a few seconds old, so resources
+ * created since the index was loaded are still found.
+ * With a {@link SnapshotStore}, what is known about each collection is also saved to disk, and restored the first
+ * time the collection is used after a restart. Restored names are answered straight away as if they were half way
+ * through their time to live, so they are revalidated with the server in the background.
+ * One cache is shared by every API view of the same server.
+ */
+public class NameCache {
+    /** An index that missed a name is only reloaded for it when it is older than this. */
+    static final long MISS_RELOAD_MILLIS = 5 * 1000;
+    /** The number of results asked for by a search; a search with more results than this falls back to a full load. */
+    static final int SEARCH_TAKE = 30;
+    /** The number of names remembered from searches per collection before they are forgotten. */
+    static final int MAX_RESOLVED_NAMES = 1000;
+
+    private final long ttlNanos;
+    private final ApiExecutor executor;
+    private final WebClientMetrics metrics;
+    private final SnapshotStore snapshots;
+    private final ConcurrentMap<Key, Entry<?>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new cache.
+     * @param ttlMillis how long a loaded collection is used for
+     * @param executor runs background reloads
+     * @param metrics the metrics to record lookups in
+     */
+    public NameCache(long ttlMillis, ApiExecutor executor, WebClientMetrics metrics) {
+        this(ttlMillis, executor, metrics, null);
+    }
+
+    /**
+     * Create a new cache that keeps snapshots of what it knows.
+     * @param ttlMillis how long a loaded collection is used for
+     * @param executor runs background reloads and snapshot writes
+     * @param metrics the metrics to record lookups in
+     * @param snapshots where snapshots are kept, or null to keep none
+     */
+    public NameCache(long ttlMillis, ApiExecutor executor, WebClientMetrics metrics, SnapshotStore snapshots) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.executor = executor;
+        this.metrics = metrics;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Finds a resource by name in a collection that can only be loaded as a whole.
+     * When several resources have the name, the first one in the order of the loaded collection is returned.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec writes the resources to snapshots, or null if the collection is not kept in them
+     * @param loader loads the whole collection
+     * @param nameOf gets the name of a resource
+     * @param name the name to look for
+     * @param ignoreCase when true the name is matched as by {@link String#equalsIgnoreCase(String)}
+     * @param <T> the type of the resources
+     * @return the resource, or null if there is none with the name
+     * @throws IOException if the collection has to be loaded and can not be
+     */
+    public <T> T find(String spaceId, String collection, Codec<T> codec, ApiCall<? extends Collection<T>> loader,
+                      Function<T, String> nameOf, String name, boolean ignoreCase) throws IOException {
+        return find(spaceId, collection, codec, loader, null, nameOf, name, ignoreCase);
+    }
+
+    /**
+     * Finds a resource by name. A loaded index of the whole collection is used while it is fresh; otherwise
+     * the server is asked only for the resources whose names contain the name, and the whole collection is
+     * loaded only when that search can not settle the lookup.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec writes the resources to snapshots, or null if the collection is not kept in them
+     * @param loader loads the whole collection
+     * @param search asks the server for the resources whose names contain a name, or null if it can not
+     * @param nameOf gets the name of a resource
+     * @param name the name to look for
+     * @param ignoreCase when true the name is matched as by {@link String#equalsIgnoreCase(String)}
+     * @param <T> the type of the resources
+     * @return the resource, or null if there is none with the name
+     * @throws IOException if the server has to be asked and can not be
+     */
+    public <T> T find(String spaceId, String collection, Codec<T> codec, ApiCall<? extends Collection<T>> loader,
+                      Search<T> search, Function<T, String> nameOf, String name, boolean ignoreCase) throws IOException {
+        if (name == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Entry<T> entry = (Entry<T>)entries.computeIfAbsent(new Key(spaceId, collection), key -> new Entry<T>(key));
+        if (snapshots != null && codec != null && !entry.restored) {
+            entry.restore(snapshots, codec, nameOf, ttlNanos);
+        }
+        long missReloadNanos = TimeUnit.MILLISECONDS.toNanos(MISS_RELOAD_MILLIS);
+        Index<T> index = entry.index;
+        if (index != null && index.ageNanos() < ttlNanos) {
+            if (index.ageNanos() >= ttlNanos / 2) {
+                entry.reloadInBackground(this, loader, nameOf);
+            }
+            T match = index.find(name, ignoreCase);
+            if (match != null || index.ageNanos() < missReloadNanos) {
+                metrics.recordNameLookup(false);
+                return match;
+            }
+        }
+        if (search != null) {
+            String key = ignoreCase ? "i:" + fold(name) : "e:" + name;
+            Resolved<T> resolved = entry.resolved.get(key);
+            if (resolved != null && resolved.ageNanos() < (resolved.value != null ? ttlNanos : missReloadNanos)) {
+                if (resolved.restored) {
+                    entry.resolveInBackground(this, key, search, nameOf, name, ignoreCase, resolved);
+                }
+                metrics.recordNameLookup(false);
+                return resolved.value;
+            }
+            metrics.recordNameLookup(true);
+            Resolved<T> settled = entry.resolve(this, key, search, nameOf, name, ignoreCase);
+            if (settled != null) {
+                return settled.value;
+            }
+        } else {
+            metrics.recordNameLookup(true);
+        }
+        return entry.load(this, loader, nameOf).find(name, ignoreCase);
+    }
+
+    /**
+     * Gets a whole collection, such as to index it some other way. The loaded collection is used until it is
+     * half way through its time to live, when a lookup would start reloading it; after that it is loaded again.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec writes the resources to snapshots, or null if the collection is not kept in them
+     * @param loader loads the whole collection
+     * @param nameOf gets the name of a resource
+     * @param <T> the type of the resources
+     * @return the resources in the order they were loaded
+     * @throws IOException if the collection has to be loaded and can not be
+     */
+    public <T> List<T> getAll(String spaceId, String collection, Codec<T> codec, ApiCall<? extends Collection<T>> loader,
+                              Function<T, String> nameOf) throws IOException {
+        @SuppressWarnings("unchecked")
+        Entry<T> entry = (Entry<T>)entries.computeIfAbsent(new Key(spaceId, collection), key -> new Entry<T>(key));
+        if (snapshots != null && codec != null && !entry.restored) {
+            entry.restore(snapshots, codec, nameOf, ttlNanos);
+        }
+        Index<T> index = entry.index;
+        if (index != null && index.ageNanos() < ttlNanos / 2) {
+            return index.resources;
+        }
+        return entry.load(this, loader, nameOf).resources;
+    }
+
+    /**
+     * Replaces the index of a collection with the whole collection loaded elsewhere, such as by a prefetch,
+     * so that names in it are found without asking the server until it is half way through its time to live.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec writes the resources to snapshots, or null if the collection is not kept in them
+     * @param resources the whole collection
+     * @param nameOf gets the name of a resource
+     * @param <T> the type of the resources
+     */
+    public <T> void put(String spaceId, String collection, Codec<T> codec, Collection<T> resources, Function<T, String> nameOf) {
+        @SuppressWarnings("unchecked")
+        Entry<T> entry = (Entry<T>)entries.computeIfAbsent(new Key(spaceId, collection), key -> new Entry<T>(key));
+        if (codec != null) {
+            entry.codec = codec;
+        }
+        try {
+            entry.load(this, () -> resources, nameOf);
+        } catch (IOException ex) {
+            // the collection is already loaded, so the load can not fail
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The query parameters of a search for the resources whose names contain a name,
+     * for collections that support the partialName filter.
+     * @param name the name to search for
+     * @return the query parameters
+     */
+    public static Map<String, String> searchParameters(String name) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("partialName", name);
+        parameters.put("take", Integer.toString(SEARCH_TAKE));
+        return parameters;
+    }
+
+    /**
+     * Writes the snapshot of every collection that changed since its snapshot was last written,
+     * such as before the cache is discarded. Does nothing without a {@link SnapshotStore}.
+     */
+    public void saveSnapshots() {
+        for (Entry<?> entry : entries.values()) {
+            entry.save(snapshots);
+        }
+    }
+
+    /**
+     * Forgets every loaded collection, so the next lookup in each loads it again.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * The number of collections that have been looked up in since the cache was last cleared.
+     * @return the collection count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Folds a name so that two names fold to the same string exactly when they are equal ignoring case,
+     * as defined by {@link String#equalsIgnoreCase(String)}.
+     */
+    static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static final class Entry<T> {
+        private final Key key;
+        private final AtomicBoolean reloading = new AtomicBoolean();
+        private final AtomicBoolean changed = new AtomicBoolean();
+        private final AtomicBoolean saveScheduled = new AtomicBoolean();
+        private final ConcurrentMap<String, Resolved<T>> resolved = new ConcurrentHashMap<>();
+        private volatile Index<T> index;
+        private volatile Codec<T> codec;
+        private volatile boolean restored;
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private void remember(String key, Resolved<T> result) {
+            if (resolved.size() >= MAX_RESOLVED_NAMES) {
+                resolved.clear();
+            }
+            resolved.put(key, result);
+        }
+
+        /**
+         * Restores the snapshot of the collection the first time it is used, aged so that it is revalidated.
+         */
+        private synchronized void restore(SnapshotStore snapshots, Codec<T> codec, Function<T, String> nameOf, long ttlNanos) {
+            this.codec = codec;
+            if (restored) {
+                return;
+            }
+            restored = true;
+            SnapshotStore.Snapshot<T> snapshot = snapshots.read(key.spaceId, key.collection, codec);
+            if (snapshot == null) {
+                return;
+            }
+            long staleNanos = System.nanoTime() - ttlNanos / 2;
+            if (snapshot.getResources() != null && index == null) {
+                index = new Index<>(snapshot.getResources(), nameOf, staleNanos);
+            }
+            for (Map.Entry<String, T> name : snapshot.getResolved().entrySet()) {
+                resolved.putIfAbsent(name.getKey(), new Resolved<>(name.getValue(), staleNanos, true));
+            }
+        }
+
+        /**
+         * Searches for a name and remembers the result when the search settles it.
+         * @return the result, or null if the search could not settle it
+         */
+        private Resolved<T> resolve(NameCache cache, String key, Search<T> search, Function<T, String> nameOf,
+                                    String name, boolean ignoreCase) throws IOException {
+            long startNanos = System.nanoTime();
+            Page<T> page = search.search(name);
+            T match = new Index<>(page.getItems(), nameOf, startNanos).find(name, ignoreCase);
+            if (match == null && !page.isComplete()) {
+                return null;
+            }
+            Resolved<T> result = new Resolved<>(match, startNanos, false);
+            remember(key, result);
+            if (match != null) {
+                changed(cache);
+            }
+            return result;
+        }
+
+        private void resolveInBackground(NameCache cache, String key, Search<T> search, Function<T, String> nameOf,
+                                         String name, boolean ignoreCase, Resolved<T> restored) {
+            if (!restored.revalidating.compareAndSet(false, true)) {
+                return;
+            }
+            cache.executor.submit(() -> resolve(cache, key, search, nameOf, name, ignoreCase)).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    restored.revalidating.set(false);
+                    Logger.getLogger(NameCache.class.getName()).log(Level.FINE, "Unable to revalidate a name with the Octopus server", ex);
+                }
+            });
+        }
+
+        private Index<T> load(NameCache cache, ApiCall<? extends Collection<T>> loader, Function<T, String> nameOf) throws IOException {
+            long startNanos = System.nanoTime();
+            Index<T> loaded = new Index<>(loader.call(), nameOf, startNanos);
+            synchronized (this) {
+                // a slower load that started earlier must not replace a newer index
+                if (index == null || index.loadedNanos - loaded.loadedNanos <= 0) {
+                    index = loaded;
+                }
+            }
+            changed(cache);
+            return loaded;
+        }
+
+        private void reloadInBackground(NameCache cache, ApiCall<? extends Collection<T>> loader, Function<T, String> nameOf) {
+            if (!reloading.compareAndSet(false, true)) {
+                return;
+            }
+            cache.executor.submit(() -> load(cache, loader, nameOf)).whenComplete((loaded, ex) -> {
+                reloading.set(false);
+                if (ex != null) {
+                    Logger.getLogger(NameCache.class.getName()).log(Level.FINE, "Unable to reload names from the Octopus server", ex);
+                }
+            });
+        }
+
+        /**
+         * Schedules a write of the snapshot, coalescing changes made while one is already scheduled.
+         */
+        private void changed(NameCache cache) {
+            if (cache.snapshots == null || codec == null) {
+                return;
+            }
+            changed.set(true);
+            if (saveScheduled.compareAndSet(false, true)) {
+                cache.executor.submit(() -> {
+                    saveScheduled.set(false);
+                    save(cache.snapshots);
+                    return null;
+                });
+            }
+        }
+
+        private void save(SnapshotStore snapshots) {
+            Codec<T> codec = this.codec;
+            if (snapshots == null || codec == null || !changed.getAndSet(false)) {
+                return;
+            }
+            Map<String, T> names = new LinkedHashMap<>();
+            for (Map.Entry<String, Resolved<T>> name : resolved.entrySet()) {
+                if (name.getValue().value != null) {
+                    names.put(name.getKey(), name.getValue().value);
+                }
+            }
+            Index<T> index = this.index;
+            try {
+                snapshots.write(key.spaceId, key.collection, codec,
+                        new SnapshotStore.Snapshot<>(index == null ? null : index.resources, names, System.currentTimeMillis()));
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(NameCache.class.getName()).log(Level.FINE, "Unable to save a snapshot of names from the Octopus server", ex);
+            }
+        }
+    }
+
+    private static final class Index<T> {
+        private final List<T> resources;
+        private final Map<String, T> exact;
+        private final Map<String, T> folded;
+        private final long loadedNanos;
+
+        private Index(Collection<T> resources, Function<T, String> nameOf, long loadedNanos) {
+            this.resources = Collections.unmodifiableList(new ArrayList<>(resources));
+            Map<String, T> exact = new HashMap<>(resources.size() * 2);
+            Map<String, T> folded = new HashMap<>(resources.size() * 2);
+            for (T resource : resources) {
+                String name = nameOf.apply(resource);
+                if (name != null) {
+                    exact.putIfAbsent(name, resource);
+                    folded.putIfAbsent(fold(name), resource);
+                }
+            }
+            this.exact = Collections.unmodifiableMap(exact);
+            this.folded = Collections.unmodifiableMap(folded);
+            this.loadedNanos = loadedNanos;
+        }
+
+        private T find(String name, boolean ignoreCase) {
+            return ignoreCase ? folded.get(fold(name)) : exact.get(name);
+        }
+
+        private long ageNanos() {
+            return System.nanoTime() - loadedNanos;
+        }
+    }
+
+    /**
+     * The result of a search for one name.
+     */
+    private static final class Resolved<T> {
+        private final T value;
+        private final long resolvedNanos;
+        /** Whether the result was restored from a snapshot, and so is revalidated when it is used. */
+        private final boolean restored;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        private Resolved(T value, long resolvedNanos, boolean restored) {
+            this.value = value;
+            this.resolvedNanos = resolvedNanos;
+            this.restored = restored;
+        }
+
+        private long ageNanos() {
+            return System.nanoTime() - resolvedNanos;
+        }
+    }
+
+    /**
+     * Asks the server for the resources whose names contain a name.
+     * @param <T> the type of the resources
+     */
+    @FunctionalInterface
+    public interface Search<T> {
+        /**
+         * Searches for a name.
+         * @param name the name to search for
+         * @return the first page of resources whose names contain the name, ignoring case
+         * @throws IOException if the search fails
+         */
+        Page<T> search(String name) throws IOException;
+    }
+
+    private static final class Key {
+        private final String spaceId;
+        private final String collection;
+
+        private Key(String spaceId, String collection) {
+            this.spaceId = spaceId;
+            this.collection = collection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return Objects.equals(spaceId, other.spaceId) && collection.equals(other.collection);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(spaceId, collection);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.Channel;
+import com.octopusdeploy.api.data.Environment;
+import com.octopusdeploy.api.data.Project;
+import com.octopusdeploy.api.data.Tenant;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves the names a build step was configured with, such as its project, environments, tenants, tenant tags
+ * and channel, all in one call. Every name is looked up at the same time on the server's API executor through its
+ * {@link NameCache}, so resolving them takes about as long as the slowest single lookup; only the channel
+ * waits for the project, since channels belong to a project.
+ * Tenant tags are expanded to the tenants they target with the space's {@link TenantTagIndex}.
+ */
+public class NameResolver {
+    private final OctopusApi api;
+
+    NameResolver(OctopusApi api) {
+        this.api = api;
+    }
+
+    /**
+     * Resolves the names of a request.
+     * @param request the names to resolve
+     * @return the resources the names resolved to
+     * @throws IOException if any lookup fails
+     */
+    public Resolution resolve(Request request) throws IOException {
+        return ApiExecutor.await(resolveAsync(request));
+    }
+
+    /**
+     * Asynchronous variant of {@link #resolve(Request)}.
+     * @param request the names to resolve
+     * @return a future completed with the resources the names resolved to, or with the first lookup failure
+     */
+    public CompletableFuture<Resolution> resolveAsync(Request request) {
+        boolean ignoreCase = request.ignoreCase;
+        CompletableFuture<Project> project = request.project == null
+                ? CompletableFuture.completedFuture(null)
+                : api.getProjectsApi().getProjectByNameAsync(request.project, ignoreCase);
+        CompletableFuture<Channel> channel = request.channel == null
+                ? CompletableFuture.completedFuture(null)
+                : project.thenCompose(p -> p == null
+                        ? CompletableFuture.completedFuture(null)
+                        : api.getChannelsApi().getChannelByNameAsync(p.getId(), request.channel));
+        Map<String, CompletableFuture<Environment>> environments = new LinkedHashMap<>();
+        for (String name : request.environments) {
+            environments.computeIfAbsent(name, n -> api.getEnvironmentsApi().getEnvironmentByNameAsync(n, ignoreCase));
+        }
+        Map<String, CompletableFuture<Tenant>> tenants = new LinkedHashMap<>();
+        for (String name : request.tenants) {
+            tenants.computeIfAbsent(name, n -> api.getTenantsApi().getTenantByNameAsync(n, ignoreCase));
+        }
+        CompletableFuture<TenantTagIndex> tenantTagIndex = request.tenantTags.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : api.getTenantsApi().getTenantTagIndexAsync(request.tenantTags);
+
+        List<CompletableFuture<?>> lookups = new ArrayList<>();
+        lookups.add(project);
+        lookups.add(channel);
+        lookups.addAll(environments.values());
+        lookups.addAll(tenants.values());
+        lookups.add(tenantTagIndex);
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> new Resolution(request, project.join(), channel.join(), joinAll(environments), joinAll(tenants), tenantTagIndex.join()));
+    }
+
+    private static <T> Map<String, T> joinAll(Map<String, CompletableFuture<T>> futures) {
+        Map<String, T> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<T>> future : futures.entrySet()) {
+            results.put(future.getKey(), future.getValue().join());
+        }
+        return results;
+    }
+
+    /**
+     * The names to resolve. Blank names are ignored.
+     */
+    public static class Request {
+        private String project;
+        private String channel;
+        private final List<String> environments = new ArrayList<>();
+        private final List<String> tenants = new ArrayList<>();
+        private final List<String> tenantTags = new ArrayList<>();
+        private boolean ignoreCase;
+
+        public Request setProject(String project) {
+            this.project = trimToNull(project);
+            return this;
+        }
+
+        /**
+         * The name of a channel of the project. It is only resolved when the project is.
+         * @param channel the channel name
+         * @return this request
+         */
+        public Request setChannel(String channel) {
+            this.channel = trimToNull(channel);
+            return this;
+        }
+
+        public Request addEnvironments(Iterable<String> names) {
+            for (String name : names) {
+                if (trimToNull(name) != null) {
+                    environments.add(name.trim());
+                }
+            }
+            return this;
+        }
+
+        public Request addTenants(Iterable<String> names) {
+            for (String name : names) {
+                if (trimToNull(name) != null) {
+                    tenants.add(name.trim());
+                }
+            }
+            return this;
+        }
+
+        /**
+         * The canonical names of tenant tags, such as "Region/EU". They are matched exactly.
+         * @param names the tag names
+         * @return this request
+         */
+        public Request addTenantTags(Iterable<String> names) {
+            for (String name : names) {
+                if (trimToNull(name) != null) {
+                    tenantTags.add(name.trim());
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Whether project, environment and tenant names are matched ignoring case. Channel names always match exactly.
+         * @param ignoreCase true to ignore case
+         * @return this request
+         */
+        public Request setIgnoreCase(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+            return this;
+        }
+
+        private static String trimToNull(String name) {
+            return name == null || name.trim().isEmpty() ? null : name.trim();
+        }
+    }
+
+    /**
+     * The resources the names of a request resolved to. A name that did not resolve is listed by {@link #getMissingNames()}.
+     */
+    public static class Resolution {
+        private final Project project;
+        public Project getProject() {
+            return project;
+        }
+
+        private final Channel channel;
+        public Channel getChannel() {
+            return channel;
+        }
+
+        private final Map<String, Environment> environments;
+        /**
+         * The environments, keyed by the names they were requested with, in the order they were requested.
+         * @return the environments; a name that did not resolve maps to null
+         */
+        public Map<String, Environment> getEnvironments() {
+            return environments;
+        }
+
+        private final Map<String, Tenant> tenants;
+        /**
+         * The tenants, keyed by the names they were requested with, in the order they were requested.
+         * @return the tenants; a name that did not resolve maps to null
+         */
+        public Map<String, Tenant> getTenants() {
+            return tenants;
+        }
+
+        private final List<Tenant> taggedTenants;
+        /**
+         * The tenants the requested tenant tags target, the way the Octopus server expands them.
+         * @return the tenants in name order, empty if no tenant tags were requested or any of them does not exist
+         */
+        public List<Tenant> getTaggedTenants() {
+            return taggedTenants;
+        }
+
+        private final List<String> missingNames;
+        /**
+         * Describes every requested name that did not resolve, such as "Environment 'Production'".
+         * @return the missing names, empty if every name resolved
+         */
+        public List<String> getMissingNames() {
+            return missingNames;
+        }
+
+        private Resolution(Request request, Project project, Channel channel, Map<String, Environment> environments, Map<String, Tenant> tenants,
+                           TenantTagIndex tenantTagIndex) {
+            this.project = project;
+            this.channel = channel;
+            this.environments = Collections.unmodifiableMap(environments);
+            this.tenants = Collections.unmodifiableMap(tenants);
+            List<String> missing = new ArrayList<>();
+            if (request.project != null && project == null) {
+                missing.add(String.format("Project '%s'", request.project));
+            }
+            if (request.channel != null && channel == null) {
+                missing.add(String.format("Channel '%s'", request.channel));
+            }
+            for (Map.Entry<String, Environment> environment : environments.entrySet()) {
+                if (environment.getValue() == null) {
+                    missing.add(String.format("Environment '%s'", environment.getKey()));
+                }
+            }
+            for (Map.Entry<String, Tenant> tenant : tenants.entrySet()) {
+                if (tenant.getValue() == null) {
+                    missing.add(String.format("Tenant '%s'", tenant.getKey()));
+                }
+            }
+            List<Tenant> taggedTenants = Collections.emptyList();
+            if (tenantTagIndex != null) {
+                List<String> missingTags = new ArrayList<>();
+                for (String tag : request.tenantTags) {
+                    if (!tenantTagIndex.isKnownTag(tag)) {
+                        missingTags.add(String.format("Tenant tag '%s'", tag));
+                    }
+                }
+                if (missingTags.isEmpty()) {
+                    taggedTenants = Collections.unmodifiableList(tenantTagIndex.resolve(request.tenantTags));
+                }
+                missing.addAll(missingTags);
+            }
+            this.taggedTenants = taggedTenants;
+            this.missingNames = Collections.unmodifiableList(missing);
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.octopusdeploy.api;
 
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import com.google.gson.stream.JsonReader;
+import com.octopusdeploy.api.data.ServerCapabilities;
 
+import java.io.Closeable;
 import java.io.IOException;
 
-public class OctopusApi {
+public class OctopusApi implements Closeable {
     private final AuthenticatedWebClient webClient;
-    private String spaceId;
+    /** Whether this is the API the client was created for, rather than a view of it; only it closes the client. */
+    private final boolean owner;
 
     private final SpacesApi spacesApi;
     public SpacesApi getSpacesApi() { return spacesApi; }
@@ -55,18 +57,49 @@ public class OctopusApi {
         return tasksApi;
     }
 
+    private final NameResolver nameResolver;
+    public NameResolver getNameResolver() {
+        return nameResolver;
+    }
+
+    /**
+     * Returns a view of this API whose calls are made in the given space.
+     * Views are immutable and share this API's connections, caches and executor,
+     * so one API can serve concurrent builds in different spaces.
+     * @param spaceId the id of the space, or null for calls outside any space
+     * @return a new API view
+     */
     public OctopusApi forSpace(String spaceId) {
-        this.webClient.spaceId = spaceId;
-        return this;
+        return new OctopusApi(webClient.forSpace(spaceId), false);
     }
 
+    /**
+     * Returns a view of this API whose calls are made outside any space.
+     * @return a new API view
+     */
     public OctopusApi forSystem() {
-        this.webClient.spaceId = null;
-        return this;
+        return forSpace(null);
+    }
+
+    /**
+     * The space calls made through this view are made in.
+     * @return the id of the space, or null outside any space
+     */
+    public String getSpaceId() {
+        return webClient.getSpaceId();
     }
 
     public OctopusApi(String octopusHost, String apiKey) {
-        webClient = new AuthenticatedWebClient(octopusHost, apiKey);
+        this(octopusHost, apiKey, new WebClientOptions());
+    }
+
+    public OctopusApi(String octopusHost, String apiKey, WebClientOptions options) {
+        this(new AuthenticatedWebClient(octopusHost, apiKey, options), true);
+    }
+
+    private OctopusApi(AuthenticatedWebClient webClient, boolean owner) {
+        this.webClient = webClient;
+        this.owner = owner;
         spacesApi = new SpacesApi(webClient);
         channelsApi = new ChannelsApi(webClient);
         tenantsApi = new TenantsApi(webClient);
@@ -77,15 +110,88 @@ public class OctopusApi {
         releasesApi = new ReleasesApi(webClient);
         variablesApi = new VariablesApi(webClient);
         tasksApi = new TasksApi(webClient);
+        nameResolver = new NameResolver(this);
+    }
+
+    /**
+     * Returns a view of this API whose calls must all complete before the deadline.
+     * The view shares this API's connections and starts out in the same space.
+     * @param deadline the deadline for every call made through the returned API
+     * @return a new API view
+     */
+    public OctopusApi withDeadline(Deadline deadline) {
+        return new OctopusApi(webClient.withDeadline(deadline), false);
+    }
+
+    /**
+     * Gets what the server can do, which is read from its API root once and kept for the capabilities time to live.
+     * @return the capabilities
+     * @throws IOException if the capabilities have to be loaded and can not be
+     */
+    public ServerCapabilities getCapabilities() throws IOException {
+        return webClient.getCapabilitiesCache().get(this::loadCapabilities);
+    }
+
+    /**
+     * Gets what the server can do without waiting for it, such as while rendering a page.
+     * Capabilities that are missing or no longer fresh are loaded in the background.
+     * @return the capabilities, or null if they have not been loaded yet
+     */
+    public ServerCapabilities getCachedCapabilities() {
+        return webClient.getCapabilitiesCache().getIfLoaded(this::loadCapabilities);
     }
 
+    private ServerCapabilities loadCapabilities() throws IOException {
+        return webClient.forSpace(null).getRoot(CAPABILITIES_READER);
+    }
+
+    private static final ResponseReader<ServerCapabilities> CAPABILITIES_READER = reader ->
+            Codecs.SERVER_CAPABILITIES.read(new JsonReader(reader));
+
     public boolean getSupportsSpaces() throws IllegalArgumentException, IOException {
-        AuthenticatedWebClient.WebResponse response = webClient.getRoot();
-        if(response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
+        return getCapabilities().getSupportsSpaces();
+    }
+
+    /**
+     * Counters for the traffic between this client and the Octopus server.
+     * @return the metrics
+     */
+    public WebClientMetrics getMetrics() {
+        return webClient.getMetrics();
+    }
+
+    /**
+     * Prefetches the names of every space into this server's caches.
+     * @param concurrency the maximum number of collections loaded at once
+     * @return the prefetcher
+     */
+    public MetadataPrefetcher getMetadataPrefetcher(int concurrency) {
+        return new MetadataPrefetcher(this, concurrency);
+    }
+
+    AuthenticatedWebClient getWebClient() {
+        return webClient;
+    }
+
+    /**
+     * Releases the connections held for this server once no call is in flight through this API or any view of it.
+     * Does nothing on a view, as views share the connections of the API they were made from.
+     */
+    public void closeWhenIdle() {
+        if (owner) {
+            webClient.closeWhenIdle();
         }
+    }
 
-        JSONObject json = (JSONObject) JSONSerializer.toJSON(response.getContent());
-        return ((JSONObject)json.get("Links")).has("Spaces");
+    /**
+     * Releases the connections held for this server. Requests already in flight are allowed to complete.
+     * Does nothing on a view made by {@link #forSpace(String)} or {@link #withDeadline(Deadline)}, so closing a view
+     * never affects the other builds using the server.
+     */
+    @Override
+    public void close() {
+        if (owner) {
+            webClient.close();
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.octopusdeploy.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a collection resource, as returned by Octopus for requests with skip and take.
+ * @param <T> the type of the items
+ */
+public class Page<T> {
+    private final List<T> items;
+    /**
+     * The items on this page, in the order the server returned them.
+     * @return the items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    private final int totalResults;
+    /**
+     * The number of items in the whole collection, or in the part of it selected by the request's filters.
+     * @return the total number of results
+     */
+    public int getTotalResults() {
+        return totalResults;
+    }
+
+    private final int itemsPerPage;
+    public int getItemsPerPage() {
+        return itemsPerPage;
+    }
+
+    public Page(List<T> items, int totalResults, int itemsPerPage) {
+        this.items = Collections.unmodifiableList(items);
+        this.totalResults = totalResults;
+        this.itemsPerPage = itemsPerPage;
+    }
+
+    /**
+     * Whether this page holds every result, so no further pages need to be requested.
+     * @return true if there are no more results than items on this page
+     */
+    public boolean isComplete() {
+        return totalResults <= items.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Page [items=" + items.size() + ", totalResults=" + totalResults + ", itemsPerPage=" + itemsPerPage + "]";
+    }
+}
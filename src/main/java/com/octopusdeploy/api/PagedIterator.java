@@ -0,0 +1,123 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Iterates over a paged collection resource, requesting each page with skip and take only when the caller
+ * reaches it. A caller that stops early, for example once {@link #find(Predicate)} has found what it is
+ * looking for, never downloads the remaining pages.
+ * @param <T> the type of the items
+ */
+public class PagedIterator<T> {
+    public static final int DEFAULT_PAGE_SIZE = 30;
+
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private List<T> items = new ArrayList<>();
+    private int position;
+    private int skip;
+    private boolean lastPage;
+    private int pagesLoaded;
+
+    /**
+     * Create a new iterator. No page is requested until the first call to {@link #hasNext()} or {@link #next()}.
+     * @param loader requests one page
+     * @param pageSize the number of items to request per page, or zero or less for {@link #DEFAULT_PAGE_SIZE}
+     */
+    public PagedIterator(PageLoader<T> loader, int pageSize) {
+        this.loader = loader;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * Whether there is another item, requesting the next page if the current one is used up.
+     * @return true if {@link #next()} will return an item
+     * @throws IOException if the next page can not be requested
+     */
+    public boolean hasNext() throws IOException {
+        while (position >= items.size() && !lastPage) {
+            loadNextPage();
+        }
+        return position < items.size();
+    }
+
+    /**
+     * Returns the next item, requesting the next page if the current one is used up.
+     * @return the item
+     * @throws IOException if the next page can not be requested
+     * @throws NoSuchElementException if there are no more items
+     */
+    public T next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.get(position++);
+    }
+
+    /**
+     * Returns the first remaining item that matches, without requesting any page after the one it is on.
+     * @param predicate the condition the item must meet
+     * @return the item, or null if no remaining item matches
+     * @throws IOException if a page can not be requested
+     */
+    public T find(Predicate<? super T> predicate) throws IOException {
+        while (hasNext()) {
+            T item = next();
+            if (predicate.test(item)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads every remaining item.
+     * @return the items, in the order the server returned them
+     * @throws IOException if a page can not be requested
+     */
+    public List<T> toList() throws IOException {
+        List<T> remaining = new ArrayList<>();
+        while (hasNext()) {
+            remaining.add(next());
+        }
+        return remaining;
+    }
+
+    /**
+     * The number of pages requested so far.
+     * @return the page count
+     */
+    public int getPagesLoaded() {
+        return pagesLoaded;
+    }
+
+    private void loadNextPage() throws IOException {
+        Page<T> page = loader.load(skip, pageSize);
+        pagesLoaded++;
+        items = page.getItems();
+        position = 0;
+        skip += items.size();
+        // a server that ignores take still returns its own page size; an empty page always ends the collection
+        lastPage = items.isEmpty() || skip >= page.getTotalResults();
+    }
+
+    /**
+     * Requests one page of a collection.
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        /**
+         * Requests the page.
+         * @param skip the number of items to skip
+         * @param take the number of items to return
+         * @return the page
+         * @throws IOException if the page can not be requested
+         */
+        Page<T> load(int skip, int take) throws IOException;
+    }
+}
@@ -1,14 +1,13 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Project;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
-
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 
 public class ProjectsApi {
     private final AuthenticatedWebClient webClient;
@@ -25,23 +24,38 @@ public class ProjectsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Set<Project> getAllProjects() throws IllegalArgumentException, IOException {
+        return webClient.get("projects/all", null, ALL_PROJECTS_READER);
+    }
+
+    private static final ResponseReader<Set<Project>> ALL_PROJECTS_READER = reader -> {
         TreeSet<Project> projects = new TreeSet<>(Comparator.comparing(Project::getName).thenComparing(Project::getId));
-        AuthenticatedWebClient.WebResponse response = webClient.get("projects/all");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONArray json = (JSONArray)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            projects.add(new Project(id, name));
+        JsonReader json = new JsonReader(reader);
+        json.beginArray();
+        while (json.hasNext()) {
+            projects.add(Codecs.PROJECT.read(json));
         }
-        return projects;
+        json.endArray();
+        return Collections.unmodifiableSet(projects);
+    };
+
+    private static final ResponseReader<Page<Project>> PROJECT_PAGE_READER =
+            reader -> JsonReaders.readPage(new JsonReader(reader), Codecs.PROJECT::read);
+
+    /**
+     * Asks the server for the projects whose names contain the given text, ignoring case,
+     * without downloading the full list of projects.
+     * @param partialName the text to search for
+     * @return the first page of matching projects
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Page<Project> searchProjects(String partialName) throws IllegalArgumentException, IOException {
+        return webClient.get("projects", NameCache.searchParameters(partialName), PROJECT_PAGE_READER);
     }
 
     /**
-     * Loads in the full list of projects from the API, then selects one project by name.
+     * Selects one project by name. Only the projects whose names contain the name are requested, unless there
+     * are too many of them; lookups are remembered by the server's {@link NameCache}.
      * Only selects the project if the name is an exact match (including case)
      * @param name name of the project to select
      * @return the named project or null if no such project exists
@@ -53,7 +67,8 @@ public class ProjectsApi {
     }
 
     /**
-     * Loads in the full list of projects from the API, then selects one project by name.
+     * Selects one project by name. Only the projects whose names contain the name are requested, unless there
+     * are too many of them; lookups are remembered by the server's {@link NameCache}.
      * @param name name of the project to select
      * @param ignoreCase when true uses equalsIgnoreCase in the name check
      * @return the named project or null if no such project exists
@@ -61,13 +76,37 @@ public class ProjectsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Project getProjectByName(String name, boolean ignoreCase)  throws IllegalArgumentException, IOException {
-        Set<Project> allProjects = getAllProjects();
-        for (Project project : allProjects) {
-            if ((ignoreCase && name.equalsIgnoreCase(project.getName())) ||
-               (!ignoreCase && name.equals(project.getName()))) {
-                return project;
-            }
-        }
-        return null;
+        return webClient.getNameCache().find(webClient.getSpaceId(), "projects/all", Codecs.PROJECT,
+                this::getAllProjects, this::searchProjects, Project::getName, name, ignoreCase);
+    }
+
+    /**
+     * Loads all projects into the server's {@link NameCache}, so their names are found without asking the server.
+     * @return all projects in the space
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Set<Project> prefetchNames() throws IllegalArgumentException, IOException {
+        Set<Project> projects = getAllProjects();
+        webClient.getNameCache().put(webClient.getSpaceId(), "projects/all", Codecs.PROJECT, projects, Project::getName);
+        return projects;
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAllProjects()}, run on the Octopus server's API executor.
+     * @return a future completed with all projects on the Octopus server
+     */
+    public CompletableFuture<Set<Project>> getAllProjectsAsync() {
+        return webClient.supplyAsync(() -> getAllProjects());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getProjectByName(String, boolean)}, run on the Octopus server's API executor.
+     * @param name The name of the project to find.
+     * @param ignoreCase when true uses equalsIgnoreCase in the name check
+     * @return a future completed with the project with that name, or null
+     */
+    public CompletableFuture<Project> getProjectByNameAsync(String name, boolean ignoreCase) {
+        return webClient.supplyAsync(() -> getProjectByName(name, ignoreCase));
     }
 }
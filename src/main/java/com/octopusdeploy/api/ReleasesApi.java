@@ -1,17 +1,20 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Release;
 import com.octopusdeploy.api.data.SelectedPackage;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
-import org.apache.commons.lang.StringUtils;
+import java.util.concurrent.CompletableFuture;
 
 public class ReleasesApi {
-    private final static String UTF8 = "UTF-8";
     private final AuthenticatedWebClient webClient;
 
     public ReleasesApi(AuthenticatedWebClient webClient) {
@@ -52,30 +55,31 @@ public class ReleasesApi {
      * @throws java.io.IOException When the AuthenticatedWebClient receives and error response code
      */
     public String createRelease(String project, String releaseVersion, String channelId, String releaseNotes, Set<SelectedPackage> selectedPackages) throws IOException {
-        StringBuilder jsonBuilder = new StringBuilder();
-        jsonBuilder.append(String.format("{ProjectId:\"%s\",Version:\"%s\"", project, releaseVersion));
-        if (channelId != null && !channelId.isEmpty()) {
-            jsonBuilder.append(String.format(",ChannelId:\"%s\"", channelId));
-        }
-        if (releaseNotes != null && !releaseNotes.isEmpty()) {
-            jsonBuilder.append(String.format(",ReleaseNotes:\"%s\"", releaseNotes));
-        }
-        if (selectedPackages != null && !selectedPackages.isEmpty()) {
-            jsonBuilder.append(",SelectedPackages:[");
-            Set<String> selectedPackageStrings = new HashSet<String>();
-            for (SelectedPackage selectedPackage : selectedPackages) {
-                // StepName has been deprecated, ActionName should now be used. Continue passing StepName in case an older
-                // version of Octopus server is in use.
-                String actionName = selectedPackage.getStepName();
-                selectedPackageStrings.add(String.format("{StepName:\"%s\",ActionName:\"%s\",PackageReferenceName:\"%s\",Version:\"%s\"}", actionName, actionName, selectedPackage.getPackageReferenceName(), selectedPackage.getVersion()));
+        RequestBody body = RequestBody.json(json -> {
+            json.beginObject();
+            json.name("ProjectId").value(project);
+            json.name("Version").value(releaseVersion);
+            if (channelId != null && !channelId.isEmpty()) {
+                json.name("ChannelId").value(channelId);
             }
-            jsonBuilder.append(StringUtils.join(selectedPackageStrings, ","));
-            jsonBuilder.append("]");
-        }
-        jsonBuilder.append("}");
-        String json = jsonBuilder.toString();
-        byte[] data = json.getBytes(Charset.forName(UTF8));
-        AuthenticatedWebClient.WebResponse response = webClient.post("releases", data);
+            if (releaseNotes != null && !releaseNotes.isEmpty()) {
+                json.name("ReleaseNotes").value(releaseNotes);
+            }
+            if (selectedPackages != null && !selectedPackages.isEmpty()) {
+                json.name("SelectedPackages").beginArray();
+                Set<List<String>> written = new HashSet<>();
+                for (SelectedPackage selectedPackage : selectedPackages) {
+                    // StepName has been deprecated, ActionName should now be used. The codec passes both in case an older
+                    // version of Octopus server is in use.
+                    if (written.add(Arrays.asList(selectedPackage.getStepName(), selectedPackage.getPackageReferenceName(), selectedPackage.getVersion()))) {
+                        Codecs.SELECTED_PACKAGE.write(json, selectedPackage);
+                    }
+                }
+                json.endArray();
+            }
+            json.endObject();
+        });
+        AuthenticatedWebClient.WebResponse response = webClient.post("releases", body);
         if (response.isErrorCode()) {
             String errorMsg = ErrorParser.getErrorsFromResponse(response.getContent());
             throw new IOException(String.format("Code %s - %n%s", response.getCode(), errorMsg));
@@ -84,30 +88,76 @@ public class ReleasesApi {
     }
 
     /**
-     * Get all releases for a given project from the Octopus server;
+     * Get all releases for a given project from the Octopus server, reading every page of them.
+     * Callers looking for one release should use {@link #iterateReleasesForProject(String, int)} instead,
+     * which stops requesting pages once the release is found.
      * @param projectId the id of the project to get the releases for
      * @return A set of all releases for a given project
      * @throws IllegalArgumentException when the web client receives a bad parameter
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Set<Release> getReleasesForProject(String projectId) throws IllegalArgumentException, IOException {
-        HashSet<Release> releases = new HashSet<Release>();
-        AuthenticatedWebClient.WebResponse response = webClient.get("projects/" + projectId + "/releases");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json.getJSONArray("Items")) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String version = jsonObj.getString("Version");
-            String channelId = jsonObj.getString("ChannelId");
-            String ReleaseNotes = jsonObj.getString("ReleaseNotes");
-            releases.add(new Release(id, projectId, channelId, ReleaseNotes, version));
+        return new HashSet<>(iterateReleasesForProject(projectId, PagedIterator.DEFAULT_PAGE_SIZE).toList());
+    }
+
+    /**
+     * Iterates over the releases of a project, newest first, requesting a page of them at a time as the
+     * iterator reaches it.
+     * @param projectId the id of the project to get the releases for
+     * @param pageSize the number of releases to request per page, or zero for the default
+     * @return an iterator over the releases
+     */
+    public PagedIterator<Release> iterateReleasesForProject(String projectId, int pageSize) {
+        return new PagedIterator<>((skip, take) -> {
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put("skip", Integer.toString(skip));
+            parameters.put("take", Integer.toString(take));
+            return webClient.get("projects/" + projectId + "/releases", parameters, RELEASE_PAGE_READER);
+        }, pageSize);
+    }
+
+    /**
+     * Get a release of a project by its version, with a single request however many releases the project has.
+     * @param projectId the id of the project the release belongs to
+     * @param releaseVersion the version of the release
+     * @return the release, or null if the project has no release with that version
+     * @throws IOException When the AuthenticatedWebClient receives and error response code other than 404
+     */
+    public Release getReleaseByVersion(String projectId, String releaseVersion) throws IOException {
+        try {
+            return webClient.get(releaseResource(projectId, releaseVersion), null, RELEASE_READER);
+        } catch (WebResponseException ex) {
+            if (ex.getCode() == 404) {
+                return null;
+            }
+            throw ex;
         }
-        return releases;
     }
 
+    /**
+     * Whether a project has a release with the given version.
+     * @param projectId the id of the project the release belongs to
+     * @param releaseVersion the version of the release
+     * @return true if the release exists
+     * @throws IOException When the AuthenticatedWebClient receives and error response code other than 404
+     */
+    public boolean releaseExists(String projectId, String releaseVersion) throws IOException {
+        return getReleaseByVersion(projectId, releaseVersion) != null;
+    }
+
+    /**
+     * The API path of a release of a project. The version is encoded as a path segment, since versions
+     * may contain characters such as '+' that are not allowed in one as they are.
+     */
+    private static String releaseResource(String projectId, String releaseVersion) throws UnsupportedEncodingException {
+        return "projects/" + projectId + "/releases/" + URLEncoder.encode(releaseVersion, "UTF-8").replace("+", "%20");
+    }
+
+    private static final ResponseReader<Release> RELEASE_READER = reader -> Codecs.RELEASE.read(new JsonReader(reader));
+
+    private static final ResponseReader<Page<Release>> RELEASE_PAGE_READER =
+            reader -> JsonReaders.readPage(new JsonReader(reader), Codecs.RELEASE::read);
+
     /**
      * Get the partial Octopus portal URL for a given release version of a project;
      * @param projectId the id of the project to get the releases for
@@ -117,12 +167,74 @@ public class ReleasesApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public String getPortalUrlForRelease(String projectId, String releaseVersion) throws IllegalArgumentException, IOException {
-        AuthenticatedWebClient.WebResponse response = webClient.get("projects/" + projectId + "/releases/" + releaseVersion);
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
+        return webClient.get(releaseResource(projectId, releaseVersion), null, WEB_LINK_READER);
+    }
+
+    /**
+     * Reads the portal link of a resource, skipping everything else about it.
+     */
+    private static final ResponseReader<String> WEB_LINK_READER = reader -> {
+        String web = null;
+        JsonReader json = new JsonReader(reader);
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("Links")) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    if (json.nextName().equals("Web")) {
+                        web = JsonReaders.nextString(json);
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            } else {
+                json.skipValue();
+            }
         }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        JSONObject links = json.getJSONObject("Links");
-        return links.getString("Web");
+        json.endObject();
+        return web;
+    };
+
+    /**
+     * Asynchronous variant of {@link #createRelease(String, String, String, String, Set)}, run on the Octopus server's API executor.
+     * @param project the project id to create the release for
+     * @param releaseVersion the version number for this release
+     * @param channelId the channel to create the release on
+     * @param releaseNotes markdown release notes for the release
+     * @param selectedPackages the packages to include in the release
+     * @return a future completed with the content of the response
+     */
+    public CompletableFuture<String> createReleaseAsync(String project, String releaseVersion, String channelId, String releaseNotes, Set<SelectedPackage> selectedPackages) {
+        return webClient.supplyAsync(() -> createRelease(project, releaseVersion, channelId, releaseNotes, selectedPackages));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getReleasesForProject(String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project to get the releases for
+     * @return a future completed with the releases of the project
+     */
+    public CompletableFuture<Set<Release>> getReleasesForProjectAsync(String projectId) {
+        return webClient.supplyAsync(() -> getReleasesForProject(projectId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getReleaseByVersion(String, String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project the release belongs to
+     * @param releaseVersion the version of the release
+     * @return a future completed with the release, or with null if there is no release with that version
+     */
+    public CompletableFuture<Release> getReleaseByVersionAsync(String projectId, String releaseVersion) {
+        return webClient.supplyAsync(() -> getReleaseByVersion(projectId, releaseVersion));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getPortalUrlForRelease(String, String)}, run on the Octopus server's API executor.
+     * @param projectId the id of the project
+     * @param releaseVersion the version of the release
+     * @return a future completed with the portal URL of the release, relative to the server
+     */
+    public CompletableFuture<String> getPortalUrlForReleaseAsync(String projectId, String releaseVersion) {
+        return webClient.supplyAsync(() -> getPortalUrlForRelease(projectId, releaseVersion));
     }
 }
@@ -0,0 +1,99 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The body of a request, written straight to the connection by the transport.
+ */
+public abstract class RequestBody {
+    public static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final String contentType;
+    /**
+     * The media type of the body, sent as the Content-Type header.
+     * @return the content type
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    protected RequestBody(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * The size of the body when it is known before it is written.
+     * Transports send bodies of unknown length with chunked transfer encoding.
+     * @return the length in bytes, or -1 if unknown
+     */
+    public abstract long getContentLength();
+
+    /**
+     * Writes the body. The stream is flushed but not closed.
+     * @param out the stream to write to
+     * @throws IOException if the body can not be written
+     */
+    public abstract void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * A body made of bytes that are already in memory.
+     * @param data the body
+     * @param contentType the media type of the body
+     * @return the body
+     */
+    public static RequestBody of(final byte[] data, String contentType) {
+        return new RequestBody(contentType) {
+            @Override
+            public long getContentLength() {
+                return data.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(data);
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * A JSON body that is encoded as UTF-8 while it is written, without being built in memory first.
+     * Strings are escaped by the writer.
+     * @param content writes the JSON document
+     * @return the body
+     */
+    public static RequestBody json(final JsonContent content) {
+        return new RequestBody(JSON_CONTENT_TYPE) {
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter json = new JsonWriter(new BufferedWriter(
+                        new OutputStreamWriter(out, StandardCharsets.UTF_8), AuthenticatedWebClient.BUFFER_SIZE));
+                content.write(json);
+                json.flush();
+            }
+        };
+    }
+
+    /**
+     * Writes a JSON document to a request body.
+     */
+    @FunctionalInterface
+    public interface JsonContent {
+        /**
+         * Writes the document.
+         * @param json the writer to write it to
+         * @throws IOException if the document can not be written
+         */
+        void write(JsonWriter json) throws IOException;
+    }
+}
@@ -0,0 +1,136 @@
+package com.octopusdeploy.api;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects an Octopus server from bursts of requests by limiting how many requests are in flight at once
+ * and how many are started per second. Requests over either limit wait in line, first come first served,
+ * until their deadline.
+ * The rate limit is a token bucket holding up to one second of requests, so short bursts go through
+ * immediately while the long-term rate stays at the limit.
+ * One limiter is shared by every request made to the same server, including retries.
+ */
+public class RequestLimiter {
+    private final int maxConcurrentRequests;
+    private final Semaphore concurrency;
+    private final double requestsPerSecond;
+    private final long intervalNanos;
+    private final double maxStoredPermits;
+    private final WebClientMetrics metrics;
+
+    private double storedPermits;
+    private long nextFreeNanos;
+
+    /**
+     * Create a new limiter.
+     * @param maxConcurrentRequests the number of requests that may be in flight at once, or zero for no limit
+     * @param requestsPerSecond the number of requests that may be started per second, or zero for no limit
+     * @param metrics the metrics to record waits in
+     */
+    public RequestLimiter(int maxConcurrentRequests, double requestsPerSecond, WebClientMetrics metrics) {
+        this.maxConcurrentRequests = Math.max(0, maxConcurrentRequests);
+        this.concurrency = this.maxConcurrentRequests > 0 ? new Semaphore(this.maxConcurrentRequests, true) : null;
+        this.requestsPerSecond = Math.max(0, requestsPerSecond);
+        this.intervalNanos = this.requestsPerSecond > 0 ? (long)(TimeUnit.SECONDS.toNanos(1) / this.requestsPerSecond) : 0;
+        this.maxStoredPermits = Math.max(1, this.requestsPerSecond);
+        this.storedPermits = maxStoredPermits;
+        this.nextFreeNanos = System.nanoTime();
+        this.metrics = metrics;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Waits until a request may be sent. Every successful call must be paired with {@link #release()}.
+     * @param deadline how long to wait at most
+     * @throws DeadlineExceededException if the request can not be sent before the deadline
+     * @throws InterruptedIOException if the calling thread is interrupted while waiting
+     */
+    public void acquire(Deadline deadline) throws InterruptedIOException {
+        if (concurrency == null && intervalNanos == 0) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        metrics.recordRequestQueued();
+        try {
+            if (intervalNanos > 0) {
+                waitForRate(deadline);
+            }
+            if (concurrency != null) {
+                waitForSlot(deadline);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a request to the Octopus server.");
+        } finally {
+            metrics.recordRequestDequeued(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Marks a request that was allowed by {@link #acquire(Deadline)} as finished.
+     */
+    public void release() {
+        if (concurrency != null) {
+            concurrency.release();
+        }
+    }
+
+    /**
+     * The number of requests currently in flight, when concurrency is limited.
+     * @return the in-flight request count, or zero when concurrency is not limited
+     */
+    public int getInFlightRequests() {
+        return concurrency == null ? 0 : maxConcurrentRequests - concurrency.availablePermits();
+    }
+
+    private void waitForRate(Deadline deadline) throws DeadlineExceededException, InterruptedException {
+        long waitNanos = reserve(deadline);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket, or reserves the next one to become available.
+     * Reservations are handed out in the order callers arrive, which keeps the queue fair.
+     * @return how long the caller must wait before its token is available
+     */
+    private synchronized long reserve(Deadline deadline) throws DeadlineExceededException {
+        long now = System.nanoTime();
+        if (now - nextFreeNanos > 0) {
+            storedPermits = Math.min(maxStoredPermits, storedPermits + (double)(now - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = now;
+        }
+        long waitNanos = nextFreeNanos - now;
+        if (deadline.isBounded() && TimeUnit.NANOSECONDS.toMillis(waitNanos) >= deadline.remainingMillis()) {
+            throw new DeadlineExceededException("Deadline exceeded while waiting for the request rate limit of the Octopus server.");
+        }
+        double fromStored = Math.min(1, storedPermits);
+        storedPermits -= fromStored;
+        nextFreeNanos += (long)((1 - fromStored) * intervalNanos);
+        return waitNanos;
+    }
+
+    private void waitForSlot(Deadline deadline) throws DeadlineExceededException, InterruptedException {
+        if (!deadline.isBounded()) {
+            concurrency.acquire();
+        } else if (!concurrency.tryAcquire(deadline.remainingMillis(), TimeUnit.MILLISECONDS)) {
+            throw new DeadlineExceededException("Deadline exceeded while waiting for the concurrent request limit of the Octopus server.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RequestLimiter [maxConcurrentRequests=" + maxConcurrentRequests + ", requestsPerSecond=" + requestsPerSecond
+                + ", inFlightRequests=" + getInFlightRequests() + "]";
+    }
+}
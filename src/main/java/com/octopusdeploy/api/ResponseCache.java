@@ -0,0 +1,239 @@
+package com.octopusdeploy.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the bodies of cacheable GET responses that carry an ETag or Last-Modified validator, so that repeat
+ * requests can be sent conditionally and a 304 Not Modified answered from memory.
+ * Only small, slow-changing resources are cached, see {@link AuthenticatedWebClient#getCached}.
+ * Entries are keyed by the full request URL, which includes the space, and the least recently used
+ * entries are evicted once the stored bodies exceed the size limit.
+ * Bodies are kept decoded, so a cached entry does not depend on the content encoding of later responses.
+ */
+public class ResponseCache {
+    static final String ETAG_HEADER = "ETag";
+    static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+    static final String CACHE_CONTROL_HEADER = "Cache-Control";
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedBytes;
+
+    /**
+     * Create a new cache whose entries may use the whole size.
+     * @param maxBytes the total size of the bodies the cache may hold
+     */
+    public ResponseCache(long maxBytes) {
+        this(maxBytes, maxBytes);
+    }
+
+    /**
+     * Create a new cache.
+     * @param maxBytes the total size of the bodies the cache may hold
+     * @param maxEntryBytes the size of the largest body the cache holds; larger responses are not cached
+     */
+    public ResponseCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxEntryBytes = Math.max(0, Math.min(this.maxBytes, maxEntryBytes));
+    }
+
+    /**
+     * Looks up the cached response for a URL.
+     * @param url the request URL
+     * @return the entry, or null if none is cached
+     */
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * The number of responses currently cached.
+     * @return the entry count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The total size of the cached bodies.
+     * @return the stored byte count
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        storedBytes = 0;
+    }
+
+    synchronized void put(String url, Entry entry) {
+        Entry previous = entries.put(url, entry);
+        if (previous != null) {
+            storedBytes -= previous.body.length;
+        }
+        storedBytes += entry.body.length;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (storedBytes > maxBytes && eldest.hasNext()) {
+            storedBytes -= eldest.next().body.length;
+            eldest.remove();
+        }
+    }
+
+    synchronized void remove(String url) {
+        Entry previous = entries.remove(url);
+        if (previous != null) {
+            storedBytes -= previous.body.length;
+        }
+    }
+
+    /**
+     * Starts capturing a response body for the cache, if the response may be cached.
+     * @param url the request URL
+     * @param response the response, which must have a 200 code
+     * @param body the decoded response body
+     * @return a stream that copies what is read from the body, or null if the response is not cacheable
+     */
+    Capture capture(String url, TransportResponse response, InputStream body) {
+        String etag = response.getHeader(ETAG_HEADER);
+        String lastModified = response.getHeader(LAST_MODIFIED_HEADER);
+        String cacheControl = response.getHeader(CACHE_CONTROL_HEADER);
+        if ((etag == null && lastModified == null) || (cacheControl != null && cacheControl.contains("no-store"))) {
+            remove(url);
+            return null;
+        }
+        return new Capture(url, etag, lastModified, body);
+    }
+
+    /**
+     * A cached response body and the validators the server sent with it.
+     */
+    public static final class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final byte[] body;
+
+        private Entry(String etag, String lastModified, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Adds the headers that make a request conditional on this entry being out of date.
+         * @param request the request to update
+         */
+        void applyValidators(TransportRequest request) {
+            if (etag != null) {
+                request.setHeader(IF_NONE_MATCH_HEADER, etag);
+            }
+            if (lastModified != null) {
+                request.setHeader(IF_MODIFIED_SINCE_HEADER, lastModified);
+            }
+        }
+
+        InputStream openStream() {
+            return new ByteArrayInputStream(body);
+        }
+    }
+
+    /**
+     * Copies a response body as it is read, and stores it once it has been read to the end.
+     * Bodies larger than the largest entry size are not stored.
+     */
+    final class Capture extends FilterInputStream {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private boolean eof;
+
+        private Capture(String url, String etag, String lastModified, InputStream in) {
+            super(in);
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                eof = true;
+            } else if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                eof = true;
+            } else if (copy != null) {
+                copy.write(b, off, read);
+                checkSize();
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            copy = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxEntryBytes) {
+                copy = null;
+            }
+        }
+
+        /**
+         * Reads whatever the consumer left of the body and stores the response.
+         * Only called once the consumer has handled the response successfully.
+         * @return true if the response was stored
+         * @throws IOException if the rest of the body can not be read
+         */
+        boolean complete() throws IOException {
+            byte[] buffer = new byte[AuthenticatedWebClient.BUFFER_SIZE];
+            while (copy != null && !eof) {
+                read(buffer, 0, buffer.length);
+            }
+            if (copy == null) {
+                remove(url);
+                return false;
+            }
+            put(url, new Entry(etag, lastModified, copy.toByteArray()));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Converts a successful response body into a result while it is streamed from the server,
+ * so that the body never has to be held in memory as a whole.
+ * @param <T> the type of the result
+ */
+@FunctionalInterface
+public interface ResponseReader<T> {
+    /**
+     * Reads the response body.
+     * @param reader the decoded body; it is closed by the caller
+     * @return the result
+     * @throws IOException if the body can not be read or is not in the expected format
+     */
+    T read(Reader reader) throws IOException;
+}
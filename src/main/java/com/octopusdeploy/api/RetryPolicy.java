@@ -0,0 +1,114 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed request to the Octopus server is worth repeating, and how long to wait first.
+ * Only idempotent requests are retried. Delays grow exponentially from the base delay up to the maximum,
+ * with full jitter so that builds which failed together do not retry together.
+ */
+public class RetryPolicy {
+    private static final String JDK_HTTP_CLIENT_PACKAGE = "java.net.http.";
+
+    private final int maxAttempts;
+    /**
+     * The maximum number of times a request is sent, including the first attempt.
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    private final long baseDelayMillis;
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    private final long maxDelayMillis;
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * Create a new policy.
+     * @param maxAttempts the maximum number of times a request is sent; one disables retries
+     * @param baseDelayMillis the upper bound of the delay before the first retry
+     * @param maxDelayMillis the upper bound of the delay before any retry
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("A request must be attempted at least once.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Whether a response code means the server, or a proxy in front of it, is temporarily unavailable.
+     * @param code the HTTP response code
+     * @return true for 502, 503 and 504
+     */
+    public static boolean isTransient(int code) {
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Whether an exception means the connection to the server failed in a way that may succeed if repeated.
+     * Connection refusals and resets and socket timeouts qualify; deadlines, interrupts, TLS and
+     * DNS failures, open circuits and error responses do not.
+     * @param ex the exception raised while sending the request or reading its response
+     * @return true if the request may be retried
+     */
+    public static boolean isTransient(IOException ex) {
+        return ex instanceof SocketException
+                || ex instanceof SocketTimeoutException
+                || ex.getClass().getName().startsWith(JDK_HTTP_CLIENT_PACKAGE);
+    }
+
+    /**
+     * Works out how long to wait before sending a request again.
+     * @param attempt the number of attempts made so far
+     * @param retryAfter the value of the Retry-After header of the failed response, may be null
+     * @param deadline the deadline of the request
+     * @return the delay in milliseconds, or -1 if the request should not be retried
+     */
+    public long nextDelayMillis(int attempt, String retryAfter, Deadline deadline) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        long requested = parseRetryAfterMillis(retryAfter);
+        if (requested > delay) {
+            delay = Math.min(requested, maxDelayMillis);
+        }
+        if (delay >= deadline.remainingMillis()) {
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * Reads a Retry-After header given in seconds. The HTTP-date form is ignored.
+     */
+    private static long parseRetryAfterMillis(String retryAfter) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim()) * 1000;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy [maxAttempts=" + maxAttempts + ", baseDelayMillis=" + baseDelayMillis
+                + ", maxDelayMillis=" + maxDelayMillis + "]";
+    }
+}
@@ -0,0 +1,132 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces identical GET requests that are in flight at the same time, so that only one of them is
+ * sent to the Octopus server and every caller receives the same result.
+ * Requests are identical when they have the same URL, which includes the server, space and query,
+ * and are converted by the same {@link ResponseReader}. Results are shared between callers and must
+ * therefore not be modified.
+ */
+class SingleFlight {
+    private static final Object LEADER_GAVE_UP = new Object();
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final WebClientMetrics metrics;
+
+    SingleFlight(WebClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes the call, or waits for the identical call already in flight.
+     * A caller waiting for another caller's request still gives up at its own deadline, and makes the
+     * request itself if the other caller's request failed only because that caller ran out of time.
+     * @param url the request URL
+     * @param reader the reader that converts the response, identifying what is shared
+     * @param deadline the deadline of this caller
+     * @param call makes the request
+     * @param <T> the type of the result
+     * @return the result
+     * @throws IOException if the request fails
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(String url, Object reader, Deadline deadline, ApiCall<T> call) throws IOException {
+        Key key = new Key(url, reader);
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return (T)lead(key, flight, call);
+            }
+            metrics.recordCoalescedRequest();
+            Object result = await(existing, deadline, url);
+            if (result != LEADER_GAVE_UP) {
+                return (T)result;
+            }
+        }
+    }
+
+    private Object lead(Key key, CompletableFuture<Object> flight, ApiCall<?> call) throws IOException {
+        try {
+            Object result = call.call();
+            flight.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight, Deadline deadline, String url) throws IOException {
+        try {
+            if (!deadline.isBounded()) {
+                return flight.get();
+            }
+            return flight.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException(String.format("Deadline exceeded while waiting for the response to GET %s.", url));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the Octopus server to respond.");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof WebResponseException) {
+                WebResponseException error = (WebResponseException)cause;
+                throw new WebResponseException(error.getCode(), error.getContent());
+            }
+            if (cause instanceof DeadlineExceededException
+                    || cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException)) {
+                // the leader ran out of time or was interrupted, which says nothing about this caller's request
+                deadline.check(String.format("waiting for the response to GET %s", url));
+                return LEADER_GAVE_UP;
+            }
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw (Error)cause;
+        }
+    }
+
+    private static final class Key {
+        private final String url;
+        private final Object reader;
+
+        private Key(String url, Object reader) {
+            this.url = url;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return url.equals(other.url) && reader == other.reader;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, System.identityHashCode(reader));
+        }
+    }
+}
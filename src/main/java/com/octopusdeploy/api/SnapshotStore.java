@@ -0,0 +1,192 @@
+package com.octopusdeploy.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps snapshots of the collections a server's {@link NameCache} has loaded and the names it has resolved on disk,
+ * so that after a restart names are resolved from the last snapshot while they are reloaded in the background,
+ * instead of every queued build asking the server for them at once.
+ * Snapshots are written in the binary form of {@link Codecs}, one file per space and collection, in a directory
+ * of their own for every server URL and API key, so API keys that can see different resources never share them.
+ * A snapshot that can not be read, or was written in another format version, is ignored.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x4f435453;
+    private static final String DEFAULT_SPACE = "default";
+    private static final String EXTENSION = ".snapshot";
+
+    private final File directory;
+
+    /**
+     * Create a new store.
+     * @param rootDirectory the directory the snapshots of every server are kept in
+     * @param hostUrl the URL of the Octopus server
+     * @param apiKey the API key the snapshots are loaded with
+     */
+    public SnapshotStore(File rootDirectory, String hostUrl, String apiKey) {
+        this.directory = new File(rootDirectory, digest(hostUrl + "\n" + apiKey));
+    }
+
+    /**
+     * The directory the snapshots of this server and API key are kept in.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads the snapshot of a collection.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec reads the resources
+     * @param <T> the type of the resources
+     * @return the snapshot, or null if there is none that can be read
+     */
+    public <T> Snapshot<T> read(String spaceId, String collection, Codec<T> codec) {
+        Path path = file(spaceId, collection).toPath();
+        try (InputStream stream = Files.newInputStream(path)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            if (in.readInt() != MAGIC || Codecs.readVarInt(in) != Codecs.FORMAT_VERSION
+                    || !collection.equals(Codecs.readString(in))) {
+                return null;
+            }
+            long savedMillis = in.readLong();
+            List<T> resources = in.readBoolean() ? Codecs.decodeAll(in, codec, new ArrayList<>()) : null;
+            int resolvedCount = Codecs.readVarInt(in);
+            Map<String, T> resolved = new LinkedHashMap<>();
+            for (int i = 0; i < resolvedCount; i++) {
+                resolved.put(Codecs.readString(in), codec.decode(in));
+            }
+            return new Snapshot<>(resources, resolved, savedMillis);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(SnapshotStore.class.getName()).log(Level.FINE, "Ignoring unreadable snapshot " + path, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot of a collection. The file is written next to the old one and moved over it,
+     * so a snapshot is never read half written.
+     * @param spaceId the space the collection belongs to, or null outside any space
+     * @param collection identifies the collection within the space, such as its API path
+     * @param codec writes the resources
+     * @param snapshot the snapshot
+     * @param <T> the type of the resources
+     * @throws IOException if the snapshot can not be written
+     */
+    public <T> void write(String spaceId, String collection, Codec<T> codec, Snapshot<T> snapshot) throws IOException {
+        File file = file(spaceId, collection);
+        Files.createDirectories(file.getParentFile().toPath());
+        Path temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+                out.writeInt(MAGIC);
+                Codecs.writeVarInt(out, Codecs.FORMAT_VERSION);
+                Codecs.writeString(out, collection);
+                out.writeLong(snapshot.getSavedMillis());
+                out.writeBoolean(snapshot.getResources() != null);
+                if (snapshot.getResources() != null) {
+                    Codecs.encodeAll(out, snapshot.getResources(), codec);
+                }
+                Codecs.writeVarInt(out, snapshot.getResolved().size());
+                for (Map.Entry<String, T> resolved : snapshot.getResolved().entrySet()) {
+                    Codecs.writeString(out, resolved.getKey());
+                    codec.encode(out, resolved.getValue());
+                }
+                out.flush();
+            }
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private File file(String spaceId, String collection) {
+        try {
+            return new File(new File(directory, spaceId == null ? DEFAULT_SPACE : URLEncoder.encode(spaceId, "UTF-8")),
+                    URLEncoder.encode(collection, "UTF-8") + EXTENSION);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * What a {@link NameCache} knows about one collection.
+     * @param <T> the type of the resources
+     */
+    public static final class Snapshot<T> {
+        private final List<T> resources;
+        /**
+         * The whole collection, in the order it was loaded.
+         * @return the resources, or null if the whole collection was never loaded
+         */
+        public List<T> getResources() {
+            return resources;
+        }
+
+        private final Map<String, T> resolved;
+        /**
+         * The resources that names were resolved to by searching, keyed as the {@link NameCache} keys them.
+         * @return the resolved resources
+         */
+        public Map<String, T> getResolved() {
+            return resolved;
+        }
+
+        private final long savedMillis;
+        public long getSavedMillis() {
+            return savedMillis;
+        }
+
+        public Snapshot(Collection<T> resources, Map<String, T> resolved, long savedMillis) {
+            this.resources = resources == null ? null : Collections.unmodifiableList(new ArrayList<>(resources));
+            this.resolved = Collections.unmodifiableMap(new LinkedHashMap<>(resolved));
+            this.savedMillis = savedMillis;
+        }
+    }
+}
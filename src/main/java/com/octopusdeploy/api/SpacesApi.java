@@ -1,14 +1,14 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Space;
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 
 public class SpacesApi {
     private final AuthenticatedWebClient webClient;
@@ -18,18 +18,20 @@ public class SpacesApi {
     }
 
     public Set<Space> getAllSpaces() throws IllegalArgumentException, IOException {
+        return webClient.getCached("spaces/all", null, ALL_SPACES_READER);
+    }
+
+    private static final ResponseReader<Set<Space>> ALL_SPACES_READER = reader -> {
         TreeSet<Space> spaces = new TreeSet<>(Comparator.comparing(Space::getName).thenComparing(Space::getId));
-        AuthenticatedWebClient.WebResponse response = webClient.get("spaces/all");
-        if(response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %s%n", response.getCode(), response.getContent()));
-        }
-        JSONArray json = (JSONArray)JSONSerializer.toJSON(response.getContent());
-        for(Object obj : json) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            spaces.add(new Space(id, name));
-        }
-        return spaces;
+        spaces.addAll(JsonReaders.readArray(new JsonReader(reader), Codecs.SPACE::read));
+        return Collections.unmodifiableSet(spaces);
+    };
+
+    /**
+     * Asynchronous variant of {@link #getAllSpaces()}, run on the Octopus server's API executor.
+     * @return a future completed with all spaces on the Octopus server
+     */
+    public CompletableFuture<Set<Space>> getAllSpacesAsync() {
+        return webClient.supplyAsync(() -> getAllSpaces());
     }
 }
@@ -0,0 +1,165 @@
+package com.octopusdeploy.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Builds the {@link SSLContext} used for every HTTPS connection to one Octopus server.
+ * The context is created once per transport, so its client session cache lets later connections
+ * resume the TLS session of an earlier one instead of repeating the full handshake.
+ */
+public final class SslContextFactory {
+    static final int SESSION_CACHE_SIZE = 100;
+    static final int SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+    private static final String PROTOCOL = "TLS";
+    private static final HostnameVerifier ANY_HOSTNAME = (hostname, session) -> true;
+
+    private SslContextFactory() {
+    }
+
+    /**
+     * Create the context for connections to a server.
+     * Certificates are checked against the JVM's trusted certificate authorities and the ones in
+     * {@link WebClientOptions#getTrustedCertificates()}; when {@link WebClientOptions#isIgnoreSslErrors()}
+     * is set, every certificate is accepted.
+     * @param options the TLS options of the server
+     * @return the context
+     * @throws IllegalArgumentException when the trusted certificates can not be read
+     */
+    public static SSLContext create(WebClientOptions options) {
+        try {
+            TrustManager trustManager = options.isIgnoreSslErrors()
+                    ? new TrustAllManager()
+                    : createTrustManager(parseCertificates(options.getTrustedCertificates()));
+            SSLContext context = SSLContext.getInstance(PROTOCOL);
+            context.init(null, new TrustManager[] { trustManager }, null);
+            SSLSessionContext sessions = context.getClientSessionContext();
+            sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+            sessions.setSessionTimeout(SESSION_TIMEOUT_SECONDS);
+            return context;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalArgumentException("Unable to set up TLS for the Octopus server: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * The hostname verifier to use alongside the context made by {@link #create(WebClientOptions)}.
+     * @param options the TLS options of the server
+     * @return the verifier, or null to keep the JDK default
+     */
+    public static HostnameVerifier hostnameVerifier(WebClientOptions options) {
+        return options.isIgnoreSslErrors() ? ANY_HOSTNAME : null;
+    }
+
+    /**
+     * Reads PEM encoded certificates.
+     * @param pem the certificates, each between BEGIN CERTIFICATE and END CERTIFICATE lines; may be null or blank
+     * @return the certificates, empty when there are none
+     * @throws CertificateException when the text is not a list of PEM encoded certificates
+     */
+    public static List<X509Certificate> parseCertificates(String pem) throws CertificateException {
+        List<X509Certificate> certificates = new ArrayList<>();
+        if (pem == null || pem.trim().isEmpty()) {
+            return certificates;
+        }
+        Collection<? extends Certificate> parsed = CertificateFactory.getInstance("X.509")
+                .generateCertificates(new ByteArrayInputStream(pem.trim().getBytes(StandardCharsets.US_ASCII)));
+        for (Certificate certificate : parsed) {
+            certificates.add((X509Certificate)certificate);
+        }
+        if (certificates.isEmpty()) {
+            throw new CertificateException("No certificates were found.");
+        }
+        return certificates;
+    }
+
+    /**
+     * Trusts the JVM's certificate authorities plus the given ones, with the JDK's own chain and hostname checks.
+     */
+    static X509TrustManager createTrustManager(List<X509Certificate> extraCertificates) throws GeneralSecurityException {
+        if (extraCertificates.isEmpty()) {
+            return defaultTrustManager();
+        }
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try {
+            trustStore.load(null, null);
+        } catch (IOException ex) {
+            throw new GeneralSecurityException(ex);
+        }
+        int alias = 0;
+        for (X509Certificate certificate : defaultTrustManager().getAcceptedIssuers()) {
+            trustStore.setCertificateEntry("jvm-" + alias++, certificate);
+        }
+        for (X509Certificate certificate : extraCertificates) {
+            trustStore.setCertificateEntry("octopus-" + alias++, certificate);
+        }
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(trustStore);
+        return (X509TrustManager)factory.getTrustManagers()[0];
+    }
+
+    private static X509TrustManager defaultTrustManager() throws GeneralSecurityException {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore)null);
+        for (TrustManager trustManager : factory.getTrustManagers()) {
+            if (trustManager instanceof X509TrustManager) {
+                return (X509TrustManager)trustManager;
+            }
+        }
+        throw new GeneralSecurityException("The JVM has no X.509 trust manager.");
+    }
+
+    /**
+     * Accepts any certificate for any host. Extending {@link X509ExtendedTrustManager} stops the JDK from
+     * wrapping it with its own hostname check, which the HTTP/2 client can not otherwise turn off.
+     */
+    private static final class TrustAllManager extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
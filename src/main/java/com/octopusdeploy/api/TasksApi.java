@@ -1,9 +1,9 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Task;
 import java.io.IOException;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 
 public class TasksApi {
     private final AuthenticatedWebClient webClient;
@@ -20,16 +20,17 @@ public class TasksApi {
      * @throws IOException  When the AuthenticatedWebClient receives and error response code
      */
     public Task getTask(String taskId) throws IllegalArgumentException, IOException {
-        AuthenticatedWebClient.WebResponse response = webClient.get("tasks/" + taskId);
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
-        }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        String id = json.getString("Id");
-        String name = json.getString("Name");
-        String description = json.getString("Description");
-        String state = json.getString("State");
-        boolean isCompleted = json.getBoolean("IsCompleted");
-        return new Task(id, name, description, state, isCompleted);
+        return webClient.get("tasks/" + taskId, null, TASK_READER);
+    }
+
+    private static final ResponseReader<Task> TASK_READER = reader -> Codecs.TASK.read(new JsonReader(reader));
+
+    /**
+     * Asynchronous variant of {@link #getTask(String)}, run on the Octopus server's API executor.
+     * @param taskId the id of the task
+     * @return a future completed with the task
+     */
+    public CompletableFuture<Task> getTaskAsync(String taskId) {
+        return webClient.supplyAsync(() -> getTask(taskId));
     }
 }
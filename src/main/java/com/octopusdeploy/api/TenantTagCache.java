@@ -0,0 +1,162 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.TagSet;
+import com.octopusdeploy.api.data.Tenant;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link TenantTagIndex} of every space, so tenant tags can be listed, checked and expanded to tenants
+ * without loading the tag sets and tenants each time.
+ * An index is used for the time to live, and is refreshed in the background once it is half way through it.
+ * An index that does not know a tag it is asked for is loaded again straight away once it is a few seconds old,
+ * so tags created since it was loaded are still found.
+ * Every load downloads the tag sets and takes the tenants from the server's {@link NameCache}, which only downloads
+ * them when it has no recent list. The new index is derived from the old one in memory, sharing the tenant ids of
+ * every tag that no tenant was tagged with or untagged from.
+ * One cache is shared by every API view of the same server.
+ */
+public class TenantTagCache {
+    /** Used for the key of the space when requests are made outside any space. */
+    private static final String DEFAULT_SPACE = "";
+
+    private final long ttlNanos;
+    private final ApiExecutor executor;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new cache.
+     * @param ttlMillis how long a loaded index is used for
+     * @param executor runs background refreshes
+     */
+    public TenantTagCache(long ttlMillis, ApiExecutor executor) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the index of a space, loading it if there is none or it is older than the time to live.
+     * @param spaceId the space, or null outside any space
+     * @param tagSets loads the tag sets of the space
+     * @param tenants loads the tenants of the space
+     * @return the index
+     * @throws IOException if the index has to be loaded and can not be
+     */
+    public TenantTagIndex get(String spaceId, ApiCall<? extends Collection<TagSet>> tagSets,
+                              ApiCall<? extends Collection<Tenant>> tenants) throws IOException {
+        return get(spaceId, Collections.<String>emptyList(), tagSets, tenants);
+    }
+
+    /**
+     * Gets the index of a space, loading it if there is none, it is older than the time to live,
+     * or it does not know one of the given tags and is older than {@link NameCache#MISS_RELOAD_MILLIS}.
+     * @param spaceId the space, or null outside any space
+     * @param canonicalTagNames the tags the index is needed for, such as "Region/EU"
+     * @param tagSets loads the tag sets of the space
+     * @param tenants loads the tenants of the space
+     * @return the index, which may still not know some of the tags if they do not exist
+     * @throws IOException if the index has to be loaded and can not be
+     */
+    public TenantTagIndex get(String spaceId, Collection<String> canonicalTagNames, ApiCall<? extends Collection<TagSet>> tagSets,
+                              ApiCall<? extends Collection<Tenant>> tenants) throws IOException {
+        Entry entry = entries.computeIfAbsent(spaceId == null ? DEFAULT_SPACE : spaceId, key -> new Entry());
+        Loaded loaded = entry.loaded;
+        if (loaded != null && loaded.ageNanos() < ttlNanos) {
+            if (loaded.ageNanos() >= ttlNanos / 2) {
+                entry.refreshInBackground(executor, tagSets, tenants);
+            }
+            if (loaded.knowsAll(canonicalTagNames) || loaded.ageNanos() < TimeUnit.MILLISECONDS.toNanos(NameCache.MISS_RELOAD_MILLIS)) {
+                return loaded.index;
+            }
+        }
+        return entry.load(tagSets, tenants);
+    }
+
+    /**
+     * Loads the index of a space now, whether or not the one it has is fresh, such as to prefetch it.
+     * @param spaceId the space, or null outside any space
+     * @param tagSets loads the tag sets of the space
+     * @param tenants loads the tenants of the space
+     * @return the index
+     * @throws IOException if the index can not be loaded
+     */
+    public TenantTagIndex load(String spaceId, ApiCall<? extends Collection<TagSet>> tagSets,
+                               ApiCall<? extends Collection<Tenant>> tenants) throws IOException {
+        return entries.computeIfAbsent(spaceId == null ? DEFAULT_SPACE : spaceId, key -> new Entry()).load(tagSets, tenants);
+    }
+
+    /**
+     * Forgets every index, so the next use of each space loads it again.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Loaded loaded;
+
+        private TenantTagIndex load(ApiCall<? extends Collection<TagSet>> tagSets,
+                                    ApiCall<? extends Collection<Tenant>> tenants) throws IOException {
+            long startNanos = System.nanoTime();
+            // loaded one after the other, as a refresh already runs on the executor the loads would queue on
+            Collection<TagSet> loadedTagSets = tagSets.call();
+            Collection<Tenant> loadedTenants = tenants.call();
+            synchronized (this) {
+                Loaded previous = loaded;
+                // a slower load that started earlier must not replace a newer index
+                if (previous != null && previous.loadedNanos - startNanos > 0) {
+                    return previous.index;
+                }
+                TenantTagIndex index = previous == null
+                        ? TenantTagIndex.build(loadedTagSets, loadedTenants)
+                        : previous.index.update(loadedTagSets, loadedTenants);
+                loaded = new Loaded(index, startNanos);
+                return index;
+            }
+        }
+
+        private void refreshInBackground(ApiExecutor executor, ApiCall<? extends Collection<TagSet>> tagSets,
+                                         ApiCall<? extends Collection<Tenant>> tenants) {
+            if (!refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            executor.submit(() -> load(tagSets, tenants)).whenComplete((index, ex) -> {
+                refreshing.set(false);
+                if (ex != null) {
+                    Logger.getLogger(TenantTagCache.class.getName()).log(Level.FINE, "Unable to refresh tenant tags from the Octopus server", ex);
+                }
+            });
+        }
+    }
+
+    private static final class Loaded {
+        private final TenantTagIndex index;
+        private final long loadedNanos;
+
+        private Loaded(TenantTagIndex index, long loadedNanos) {
+            this.index = index;
+            this.loadedNanos = loadedNanos;
+        }
+
+        private long ageNanos() {
+            return System.nanoTime() - loadedNanos;
+        }
+
+        private boolean knowsAll(Collection<String> canonicalTagNames) {
+            for (String tag : canonicalTagNames) {
+                if (!index.isKnownTag(tag)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.Tag;
+import com.octopusdeploy.api.data.TagSet;
+import com.octopusdeploy.api.data.Tenant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An inverted index from the canonical names of tenant tags, such as "Region/EU", to the tenants tagged with them,
+ * so tenant tag expressions can be checked and expanded to tenants without asking the server.
+ * Indexes are immutable; {@link #update(Collection, Collection)} derives a new index from an older one,
+ * re-indexing only the tenants whose tags changed.
+ */
+public class TenantTagIndex {
+    /** The tag set of every known tag, in tag set and tag sort order. */
+    private final Map<String, String> tagSetOfTag;
+    /** The tenants in the order they were loaded, by id. */
+    private final Map<String, Tenant> tenants;
+    /** The ids of the tenants tagged with each tag. */
+    private final Map<String, Set<String>> tenantIdsByTag;
+
+    private TenantTagIndex(Map<String, String> tagSetOfTag, Map<String, Tenant> tenants, Map<String, Set<String>> tenantIdsByTag) {
+        this.tagSetOfTag = Collections.unmodifiableMap(tagSetOfTag);
+        this.tenants = Collections.unmodifiableMap(tenants);
+        this.tenantIdsByTag = Collections.unmodifiableMap(tenantIdsByTag);
+    }
+
+    /**
+     * Indexes the tenants of a space by their tags.
+     * @param tagSets the tag sets of the space, in the order their tags should be listed
+     * @param tenants the tenants of the space
+     * @return the index
+     */
+    public static TenantTagIndex build(Collection<TagSet> tagSets, Collection<Tenant> tenants) {
+        Map<String, Set<String>> tenantIdsByTag = new HashMap<>();
+        for (Tenant tenant : tenants) {
+            for (String tag : tenant.getTenantTags()) {
+                tenantIdsByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(tenant.getId());
+            }
+        }
+        return new TenantTagIndex(tagSetsOfTags(tagSets), tenantsById(tenants), freeze(tenantIdsByTag));
+    }
+
+    /**
+     * Derives the index of a newer load of the same space. The tenant ids of a tag are only copied
+     * when a tenant was tagged with it or untagged from it since this index was built; the others are shared.
+     * @param tagSets the tag sets of the space, in the order their tags should be listed
+     * @param tenants the tenants of the space
+     * @return the index
+     */
+    public TenantTagIndex update(Collection<TagSet> tagSets, Collection<Tenant> tenants) {
+        Map<String, Tenant> updated = tenantsById(tenants);
+        Map<String, Set<String>> tenantIdsByTag = new HashMap<>(this.tenantIdsByTag);
+        Set<String> copied = new HashSet<>();
+        for (Tenant previous : this.tenants.values()) {
+            Tenant current = updated.get(previous.getId());
+            for (String tag : previous.getTenantTags()) {
+                if (current == null || !current.getTenantTags().contains(tag)) {
+                    editable(tenantIdsByTag, copied, tag).remove(previous.getId());
+                }
+            }
+        }
+        for (Tenant current : updated.values()) {
+            Tenant previous = this.tenants.get(current.getId());
+            for (String tag : current.getTenantTags()) {
+                if (previous == null || !previous.getTenantTags().contains(tag)) {
+                    editable(tenantIdsByTag, copied, tag).add(current.getId());
+                }
+            }
+        }
+        for (String tag : copied) {
+            Set<String> ids = tenantIdsByTag.get(tag);
+            if (ids.isEmpty()) {
+                tenantIdsByTag.remove(tag);
+            } else {
+                tenantIdsByTag.put(tag, Collections.unmodifiableSet(ids));
+            }
+        }
+        return new TenantTagIndex(tagSetsOfTags(tagSets), updated, tenantIdsByTag);
+    }
+
+    private static Set<String> editable(Map<String, Set<String>> tenantIdsByTag, Set<String> copied, String tag) {
+        if (copied.add(tag)) {
+            Set<String> ids = tenantIdsByTag.get(tag);
+            tenantIdsByTag.put(tag, ids == null ? new HashSet<>() : new HashSet<>(ids));
+        }
+        return tenantIdsByTag.get(tag);
+    }
+
+    /**
+     * The canonical names of every tag, in tag set and tag sort order.
+     * @return the tag names
+     */
+    public Set<String> getCanonicalTagNames() {
+        return tagSetOfTag.keySet();
+    }
+
+    /**
+     * Whether a tag is defined in one of the tag sets of the space.
+     * @param canonicalTagName the canonical name of the tag, such as "Region/EU"
+     * @return true if the tag exists
+     */
+    public boolean isKnownTag(String canonicalTagName) {
+        return tagSetOfTag.containsKey(canonicalTagName);
+    }
+
+    /**
+     * The ids of the tenants tagged with a tag.
+     * @param canonicalTagName the canonical name of the tag, such as "Region/EU"
+     * @return the tenant ids, empty if no tenant is tagged with it
+     */
+    public Set<String> getTenantIds(String canonicalTagName) {
+        return tenantIdsByTag.getOrDefault(canonicalTagName, Collections.emptySet());
+    }
+
+    /**
+     * Finds the tenants a deployment to the given tags targets, the way the Octopus server does:
+     * a tenant matches if it has at least one of the tags of every tag set the tags are from.
+     * @param canonicalTagNames the canonical names of the tags
+     * @return the matching tenants in the order they were loaded; empty if no tags are given
+     * @throws IllegalArgumentException if a tag is not defined in any tag set
+     */
+    public List<Tenant> resolve(Collection<String> canonicalTagNames) throws IllegalArgumentException {
+        Map<String, Set<String>> tenantIdsByTagSet = new HashMap<>();
+        for (String tag : canonicalTagNames) {
+            String tagSet = tagSetOfTag.get(tag);
+            if (tagSet == null) {
+                throw new IllegalArgumentException(String.format("Tenant tag '%s' does not exist", tag));
+            }
+            tenantIdsByTagSet.computeIfAbsent(tagSet, t -> new HashSet<>()).addAll(getTenantIds(tag));
+        }
+        List<Tenant> matches = new ArrayList<>();
+        if (tenantIdsByTagSet.isEmpty()) {
+            return matches;
+        }
+        for (Tenant tenant : tenants.values()) {
+            boolean matchesEveryTagSet = true;
+            for (Set<String> ids : tenantIdsByTagSet.values()) {
+                if (!ids.contains(tenant.getId())) {
+                    matchesEveryTagSet = false;
+                    break;
+                }
+            }
+            if (matchesEveryTagSet) {
+                matches.add(tenant);
+            }
+        }
+        return matches;
+    }
+
+    private static Map<String, String> tagSetsOfTags(Collection<TagSet> tagSets) {
+        Map<String, String> tagSetOfTag = new LinkedHashMap<>();
+        for (TagSet tagSet : tagSets) {
+            for (Tag tag : tagSet.getTags()) {
+                if (tag.getCanonicalName() != null) {
+                    tagSetOfTag.putIfAbsent(tag.getCanonicalName(), Objects.toString(tagSet.getId(), tagSet.getName()));
+                }
+            }
+        }
+        return tagSetOfTag;
+    }
+
+    private static Map<String, Tenant> tenantsById(Collection<Tenant> tenants) {
+        Map<String, Tenant> byId = new LinkedHashMap<>();
+        for (Tenant tenant : tenants) {
+            byId.putIfAbsent(tenant.getId(), tenant);
+        }
+        return byId;
+    }
+
+    private static Map<String, Set<String>> freeze(Map<String, Set<String>> tenantIdsByTag) {
+        for (Map.Entry<String, Set<String>> entry : tenantIdsByTag.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        return tenantIdsByTag;
+    }
+}
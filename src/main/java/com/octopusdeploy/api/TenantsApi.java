@@ -1,14 +1,14 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
 import com.octopusdeploy.api.data.Tenant;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
-
-import net.sf.json.JSONArray;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Methods for the Tenants aspects of the Octopus API
@@ -28,19 +28,33 @@ public class TenantsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Set<Tenant> getAllTenants() throws IllegalArgumentException, IOException {
+        return webClient.get("tenants/all", null, ALL_TENANTS_READER);
+    }
+
+    private static final ResponseReader<Set<Tenant>> ALL_TENANTS_READER = reader -> {
         TreeSet<Tenant> tenants = new TreeSet<>(Comparator.comparing(Tenant::getName).thenComparing(Tenant::getId));
-        AuthenticatedWebClient.WebResponse response = webClient.get("tenants/all");
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
+        JsonReader json = new JsonReader(reader);
+        json.beginArray();
+        while (json.hasNext()) {
+            tenants.add(Codecs.TENANT.read(json));
         }
-        JSONArray json = (JSONArray)JSONSerializer.toJSON(response.getContent());
-        for (Object obj : json) {
-            JSONObject jsonObj = (JSONObject)obj;
-            String id = jsonObj.getString("Id");
-            String name = jsonObj.getString("Name");
-            tenants.add(new Tenant(id, name));
-        }
-        return tenants;
+        json.endArray();
+        return Collections.unmodifiableSet(tenants);
+    };
+
+    private static final ResponseReader<Page<Tenant>> TENANT_PAGE_READER =
+            reader -> JsonReaders.readPage(new JsonReader(reader), Codecs.TENANT::read);
+
+    /**
+     * Asks the server for the tenants whose names contain the given text, ignoring case,
+     * without downloading the full list of tenants.
+     * @param partialName the text to search for
+     * @return the first page of matching tenants
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Page<Tenant> searchTenants(String partialName) throws IllegalArgumentException, IOException {
+        return webClient.get("tenants", NameCache.searchParameters(partialName), TENANT_PAGE_READER);
     }
 
     /**
@@ -57,6 +71,8 @@ public class TenantsApi {
 
     /**
      * Get the Tenant with the given name if it exists, return null otherwise.
+     * Only the tenants whose names contain the name are requested, unless there are too many of them;
+     * lookups are remembered by the server's {@link NameCache}.
      * @param name The name of the Tenant to find.
      * @param ignoreCase when true uses equalsIgnoreCase in the name check
      * @return The Environment with that name.
@@ -64,13 +80,73 @@ public class TenantsApi {
      * @throws IOException When the AuthenticatedWebClient receives and error response code
      */
     public Tenant getTenantByName(String name, boolean ignoreCase) throws IllegalArgumentException, IOException {
+        return webClient.getNameCache().find(webClient.getSpaceId(), "tenants/all", Codecs.TENANT,
+                this::getAllTenants, this::searchTenants, Tenant::getName, name, ignoreCase);
+    }
+
+    /**
+     * Loads all tenants into the server's {@link NameCache}, so their names are found without asking the server,
+     * and indexes them by tag with the tag sets in the server's {@link TenantTagCache}.
+     * @return all tenants in the space
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public Set<Tenant> prefetchNames() throws IllegalArgumentException, IOException {
         Set<Tenant> tenants = getAllTenants();
-        for (Tenant tenant : tenants) {
-            if ((ignoreCase && name.equalsIgnoreCase(tenant.getName())) ||
-               (!ignoreCase && name.equals(tenant.getName()))) {
-                return tenant;
-            }
-        }
-        return null;
+        webClient.getNameCache().put(webClient.getSpaceId(), "tenants/all", Codecs.TENANT, tenants, Tenant::getName);
+        webClient.getTenantTagCache().load(webClient.getSpaceId(), new TagSetsApi(webClient)::getAll, () -> tenants);
+        return tenants;
+    }
+
+    /**
+     * Gets the index of the tenants of the space by their tags, which is kept by the server's {@link TenantTagCache}.
+     * The tenants are taken from the server's {@link NameCache}, so they are only downloaded when it has no recent list.
+     * @return the tenant tag index
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public TenantTagIndex getTenantTagIndex() throws IllegalArgumentException, IOException {
+        return getTenantTagIndex(Collections.<String>emptyList());
+    }
+
+    /**
+     * Gets the index of the tenants of the space by their tags, loading it again if it does not know one of
+     * the given tags and was not loaded in the last few seconds, so recently created tags are found.
+     * @param canonicalTagNames the tags the index is needed for, such as "Region/EU"
+     * @return the tenant tag index
+     * @throws IllegalArgumentException when the web client receives a bad parameter
+     * @throws IOException When the AuthenticatedWebClient receives and error response code
+     */
+    public TenantTagIndex getTenantTagIndex(Collection<String> canonicalTagNames) throws IllegalArgumentException, IOException {
+        return webClient.getTenantTagCache().get(webClient.getSpaceId(), canonicalTagNames,
+                new TagSetsApi(webClient)::getAll, () -> webClient.getNameCache().getAll(webClient.getSpaceId(), "tenants/all",
+                        Codecs.TENANT, this::getAllTenants, Tenant::getName));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTenantTagIndex(Collection)}, run on the Octopus server's API executor.
+     * @param canonicalTagNames the tags the index is needed for, such as "Region/EU"
+     * @return a future completed with the tenant tag index
+     */
+    public CompletableFuture<TenantTagIndex> getTenantTagIndexAsync(Collection<String> canonicalTagNames) {
+        return webClient.supplyAsync(() -> getTenantTagIndex(canonicalTagNames));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAllTenants()}, run on the Octopus server's API executor.
+     * @return a future completed with all tenants on the Octopus server
+     */
+    public CompletableFuture<Set<Tenant>> getAllTenantsAsync() {
+        return webClient.supplyAsync(() -> getAllTenants());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getTenantByName(String, boolean)}, run on the Octopus server's API executor.
+     * @param name The name of the tenant to find.
+     * @param ignoreCase when true uses equalsIgnoreCase in the name check
+     * @return a future completed with the tenant with that name, or null
+     */
+    public CompletableFuture<Tenant> getTenantByNameAsync(String name, boolean ignoreCase) {
+        return webClient.supplyAsync(() -> getTenantByName(name, ignoreCase));
     }
 }
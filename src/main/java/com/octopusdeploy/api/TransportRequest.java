@@ -0,0 +1,118 @@
+package com.octopusdeploy.api;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single HTTP request handed to an {@link HttpTransport}.
+ */
+public class TransportRequest {
+    private final String method;
+    public String getMethod() {
+        return method;
+    }
+
+    private final URL url;
+    public URL getUrl() {
+        return url;
+    }
+
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    private final RequestBody body;
+    /**
+     * The request body, if any.
+     * @return the body to send, or null when the request has no body
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    private int connectTimeoutMillis;
+    /**
+     * How long to wait for a connection to be established.
+     * @return the timeout in milliseconds, or zero for no timeout
+     */
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    private int readTimeoutMillis;
+    /**
+     * How long to wait for the server to send data once connected.
+     * @return the timeout in milliseconds, or zero for no timeout
+     */
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    private Deadline deadline = Deadline.none();
+    /**
+     * The point by which the whole call must complete, including any wait for a free connection.
+     * @return the deadline for this request
+     */
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    private boolean cacheable;
+    /**
+     * Whether the response may be kept in the {@link ResponseCache} and revalidated with a conditional request.
+     * @return true for the small, slow-changing resources that are cached
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public TransportRequest(String method, URL url, RequestBody body) {
+        this.method = method;
+        this.url = url;
+        this.body = body;
+    }
+
+    /**
+     * Adds a request header. Content-Length and Transfer-Encoding are derived from the body by the transport
+     * and must not be set here.
+     * @param name the header name
+     * @param value the header value
+     * @return this request
+     */
+    public TransportRequest setHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Marks the response as one to keep in the {@link ResponseCache}.
+     * @param cacheable true to cache the response
+     * @return this request
+     */
+    public TransportRequest setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    /**
+     * Sets the time budget for this request. The timeouts should already be capped to the deadline.
+     * @param connectTimeoutMillis the connect timeout in milliseconds, zero for none
+     * @param readTimeoutMillis the read timeout in milliseconds, zero for none
+     * @param deadline the point by which the whole call must complete
+     * @return this request
+     */
+    public TransportRequest setTimeouts(int connectTimeoutMillis, int readTimeoutMillis, Deadline deadline) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.deadline = deadline;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
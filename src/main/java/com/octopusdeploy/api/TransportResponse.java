@@ -0,0 +1,34 @@
+package com.octopusdeploy.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The status, headers and body stream of a response received by an {@link HttpTransport}.
+ * Closing the response reads any remaining body so that the connection can be reused.
+ */
+public interface TransportResponse extends Closeable {
+    /**
+     * The HTTP response code.
+     * @return The HTTP response code. Ex. 200 or 403
+     */
+    int getCode();
+
+    /**
+     * Returns the first value of a response header.
+     * @param name the header name, matched case-insensitively
+     * @return the header value, or null when the header is absent
+     */
+    String getHeader(String name);
+
+    /**
+     * The response body, for both successful and error responses.
+     * @return the body stream (may be empty but never null)
+     * @throws IOException if the body can not be opened
+     */
+    InputStream getBody() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,156 @@
+package com.octopusdeploy.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * The default {@link HttpTransport}, built on {@link HttpURLConnection}.
+ * Sockets are reused through the JDK keep-alive cache, and the number of connections in use at once is
+ * bounded by a {@link ConnectionLimiter}.
+ * HTTPS connections share one socket factory built by {@link SslContextFactory}. The JDK only reuses a
+ * kept-alive socket for a connection with the same socket factory, and the factory's session cache lets
+ * new sockets resume an earlier TLS session.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    private final ConnectionLimiter connectionLimiter;
+    private final SSLSocketFactory sslSocketFactory;
+    private final HostnameVerifier hostnameVerifier;
+
+    /**
+     * Create a new transport.
+     * @param options transport options for connections to the Octopus server
+     * @throws IllegalArgumentException when the TLS options are not valid
+     */
+    public UrlConnectionTransport(WebClientOptions options) {
+        this.connectionLimiter = new ConnectionLimiter(options.getMaxConnectionsPerRoute());
+        this.sslSocketFactory = SslContextFactory.create(options).getSocketFactory();
+        this.hostnameVerifier = SslContextFactory.hostnameVerifier(options);
+    }
+
+    /**
+     * The limiter bounding the connections this transport uses at once.
+     * @return the connection limiter
+     */
+    public ConnectionLimiter getConnectionLimiter() {
+        return connectionLimiter;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        connectionLimiter.acquire(request.getDeadline());
+        HttpURLConnection connection = null;
+        try {
+            connection = openConnection(request);
+            RequestBody body = request.getBody();
+            if (body != null) {
+                connection.setDoOutput(true);
+                if (body.getContentLength() >= 0) {
+                    connection.setFixedLengthStreamingMode(body.getContentLength());
+                } else {
+                    connection.setChunkedStreamingMode(AuthenticatedWebClient.BUFFER_SIZE);
+                }
+                try (OutputStream outputStream = connection.getOutputStream()) {
+                    body.writeTo(outputStream);
+                }
+            }
+            int code = connection.getResponseCode();
+            return new UrlConnectionResponse(connection, code);
+        } catch (IOException | RuntimeException ex) {
+            // the socket is in an unknown state, so make sure it is not handed back to the keep-alive cache
+            if (connection != null) {
+                connection.disconnect();
+            }
+            connectionLimiter.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionLimiter.close();
+    }
+
+    private HttpURLConnection openConnection(TransportRequest request) throws IOException {
+        URLConnection urlConnection = request.getUrl().openConnection();
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new ProtocolException(String.format("Unsupported protocol for '%s'.", request.getUrl()));
+        }
+        if (urlConnection instanceof HttpsURLConnection) {
+            HttpsURLConnection httpsConnection = (HttpsURLConnection)urlConnection;
+            httpsConnection.setSSLSocketFactory(sslSocketFactory);
+            if (hostnameVerifier != null) {
+                httpsConnection.setHostnameVerifier(hostnameVerifier);
+            }
+        }
+        HttpURLConnection connection = (HttpURLConnection)urlConnection;
+        connection.setRequestMethod(request.getMethod());
+        connection.setConnectTimeout(request.getConnectTimeoutMillis());
+        connection.setReadTimeout(request.getReadTimeoutMillis());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        return connection;
+    }
+
+    private final class UrlConnectionResponse implements TransportResponse {
+        private final HttpURLConnection connection;
+        private final int code;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private InputStream body;
+
+        private UrlConnectionResponse(HttpURLConnection connection, int code) {
+            this.connection = connection;
+            this.code = code;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream stream = AuthenticatedWebClient.isErrorCode(code)
+                        ? connection.getErrorStream()
+                        : connection.getInputStream();
+                body = stream != null ? stream : new ByteArrayInputStream(new byte[0]);
+            }
+            return body;
+        }
+
+        /**
+         * Closing the body stream lets the JDK drain what is left of it and return the socket
+         * to the keep-alive cache; disconnecting would close the socket instead.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                getBody().close();
+            } catch (IOException ex) {
+                connection.disconnect();
+                throw ex;
+            } finally {
+                connectionLimiter.release();
+            }
+        }
+    }
+}
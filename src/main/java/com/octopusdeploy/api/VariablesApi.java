@@ -1,12 +1,18 @@
 package com.octopusdeploy.api;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.octopusdeploy.api.data.Variable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import net.sf.json.JSONObject;
-import net.sf.json.JSONSerializer;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.lang.StringUtils;
 
 public class VariablesApi {
@@ -27,30 +33,112 @@ public class VariablesApi {
      */
     public Set<Variable> getVariablesByReleaseAndEnvironment(String releaseId, String environmentId, Properties entryProperties) throws IllegalArgumentException, IOException {
         Set<Variable> variables = new HashSet<Variable>();
-
-        AuthenticatedWebClient.WebResponse response = webClient.get("releases/" + releaseId + "/deployments/preview/" + environmentId);
-        if (response.isErrorCode()) {
-            throw new IOException(String.format("Code %s - %n%s", response.getCode(), response.getContent()));
+        Set<Variable> prompted = webClient.get("releases/" + releaseId + "/deployments/preview/" + environmentId, null, PREVIEW_VARIABLES_READER);
+        for (Variable variable : prompted) {
+            String entryValue = entryProperties.getProperty(variable.getName());
+            if (StringUtils.isNotEmpty(entryValue)) {
+                variables.add(new Variable(variable.getId(), variable.getName(), entryValue, variable.getDescription()));
+            } else {
+                variables.add(variable);
+            }
         }
-        JSONObject json = (JSONObject)JSONSerializer.toJSON(response.getContent());
-        JSONObject form = json.getJSONObject("Form");
-        if (form != null){
-            JSONObject formValues = form.getJSONObject("Values");
-            for (Object obj : form.getJSONArray("Elements")) {
-                JSONObject jsonObj = (JSONObject) obj;
-                String id = jsonObj.getString("Name");
-                String name = jsonObj.getJSONObject("Control").getString("Name");
-                String value = formValues.getString(id);
-
-                String entryValue = entryProperties.getProperty(name);
-                if (StringUtils.isNotEmpty(entryValue)) {
-                    value = entryValue;
-                }
-                String description = jsonObj.getJSONObject("Control").getString("Description");
-                variables.add(new Variable(id, name, value, description));
+        return variables;
+    }
+
+    /**
+     * Reads the prompted variables of a deployment preview with the values the form was given,
+     * skipping the rest of the preview.
+     */
+    private static final ResponseReader<Set<Variable>> PREVIEW_VARIABLES_READER = reader -> {
+        JsonReader json = new JsonReader(reader);
+        Set<Variable> variables = new HashSet<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("Form") && json.peek() != JsonToken.NULL) {
+                variables = readForm(json);
+            } else {
+                json.skipValue();
             }
         }
+        json.endObject();
+        return Collections.unmodifiableSet(variables);
+    };
 
+    private static Set<Variable> readForm(JsonReader json) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        List<Variable> elements = new ArrayList<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "Values":
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        String id = json.nextName();
+                        values.put(id, JsonReaders.nextValueAsString(json));
+                    }
+                    json.endObject();
+                    break;
+                case "Elements":
+                    elements = JsonReaders.readArray(json, VariablesApi::readElement);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        // the values may come before or after the elements, so they are only matched up at the end
+        Set<Variable> variables = new HashSet<>();
+        for (Variable element : elements) {
+            variables.add(new Variable(element.getId(), element.getName(), values.get(element.getId()), element.getDescription()));
+        }
         return variables;
     }
+
+    /**
+     * Reads a form element as a variable without its value, which is held separately in the form.
+     */
+    private static Variable readElement(JsonReader json) throws IOException {
+        String id = null;
+        String name = null;
+        String description = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "Name":
+                    id = JsonReaders.nextString(json);
+                    break;
+                case "Control":
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        switch (json.nextName()) {
+                            case "Name":
+                                name = JsonReaders.nextString(json);
+                                break;
+                            case "Description":
+                                description = JsonReaders.nextString(json);
+                                break;
+                            default:
+                                json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Variable(id, name, null, description);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getVariablesByReleaseAndEnvironment(String, String, Properties)}, run on the Octopus server's API executor.
+     * @param releaseId the id of the release
+     * @param environmentId the id of the environment
+     * @param entryProperties the values entered for the prompted variables
+     * @return a future completed with the variables of the release
+     */
+    public CompletableFuture<Set<Variable>> getVariablesByReleaseAndEnvironmentAsync(String releaseId, String environmentId, Properties entryProperties) {
+        return webClient.supplyAsync(() -> getVariablesByReleaseAndEnvironment(releaseId, environmentId, entryProperties));
+    }
 }
@@ -0,0 +1,258 @@
+package com.octopusdeploy.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the traffic between an {@link AuthenticatedWebClient} and its Octopus server.
+ * One instance is shared by every request made to the same server.
+ */
+public class WebClientMetrics {
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder decompressedBytes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+    private final LongAdder circuitOpenings = new LongAdder();
+    private final LongAdder shortCircuitedRequests = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheStores = new LongAdder();
+    private final LongAdder coalescedRequests = new LongAdder();
+    private final LongAdder nameCacheHits = new LongAdder();
+    private final LongAdder nameCacheLoads = new LongAdder();
+    private final LongAdder queuedRequests = new LongAdder();
+    private final LongAdder throttledRequests = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private volatile CircuitBreaker.State circuitState = CircuitBreaker.State.CLOSED;
+
+    /**
+     * The number of responses received.
+     * @return the response count
+     */
+    public long getResponses() {
+        return responses.sum();
+    }
+
+    /**
+     * The number of responses the server sent with a gzip or deflate content encoding.
+     * @return the compressed response count
+     */
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    /**
+     * The number of body bytes read off the wire for compressed responses.
+     * @return the compressed byte count
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * The number of body bytes compressed responses expanded to once decoded.
+     * @return the decompressed byte count
+     */
+    public long getDecompressedBytes() {
+        return decompressedBytes.sum();
+    }
+
+    /**
+     * The number of times a request was sent again after a transient failure.
+     * @return the retry count
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * The number of requests that still failed after every retry they were allowed.
+     * @return the exhausted retry count
+     */
+    public long getRetriesExhausted() {
+        return retriesExhausted.sum();
+    }
+
+    /**
+     * The number of times the circuit breaker opened.
+     * @return the circuit opening count
+     */
+    public long getCircuitOpenings() {
+        return circuitOpenings.sum();
+    }
+
+    /**
+     * The number of requests that failed without being sent because the circuit breaker was open.
+     * @return the short-circuited request count
+     */
+    public long getShortCircuitedRequests() {
+        return shortCircuitedRequests.sum();
+    }
+
+    /**
+     * The current state of the circuit breaker.
+     * @return the circuit state
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitState;
+    }
+
+    /**
+     * The number of GET responses answered with 304 Not Modified and served from the response cache.
+     * @return the cache hit count
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * The number of GET responses stored in the response cache.
+     * @return the cache store count
+     */
+    public long getCacheStores() {
+        return cacheStores.sum();
+    }
+
+    /**
+     * The number of GET requests that were not sent because an identical request was already in flight.
+     * @return the coalesced request count
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.sum();
+    }
+
+    /**
+     * The number of name lookups answered from an already loaded collection or an earlier search.
+     * @return the name cache hit count
+     */
+    public long getNameCacheHits() {
+        return nameCacheHits.sum();
+    }
+
+    /**
+     * The number of name lookups that had to ask the server first, with a search or by loading
+     * the whole collection, because the name was not known yet, had expired, or was not found.
+     * @return the name cache load count
+     */
+    public long getNameCacheLoads() {
+        return nameCacheLoads.sum();
+    }
+
+    /**
+     * The number of requests currently waiting for the request limiter.
+     * @return the queue depth
+     */
+    public long getQueuedRequests() {
+        return queuedRequests.sum();
+    }
+
+    /**
+     * The number of requests that had to wait for the request limiter.
+     * @return the throttled request count
+     */
+    public long getThrottledRequests() {
+        return throttledRequests.sum();
+    }
+
+    /**
+     * The total time requests spent waiting for the request limiter.
+     * @return the total wait time in milliseconds
+     */
+    public long getQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos.sum());
+    }
+
+    /**
+     * The longest time a single request spent waiting for the request limiter.
+     * @return the maximum wait time in milliseconds
+     */
+    public long getMaxQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get());
+    }
+
+    void recordResponse(boolean compressed) {
+        responses.increment();
+        if (compressed) {
+            compressedResponses.increment();
+        }
+    }
+
+    void addCompressedBytes(long count) {
+        compressedBytes.add(count);
+    }
+
+    void addDecompressedBytes(long count) {
+        decompressedBytes.add(count);
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordRetriesExhausted() {
+        retriesExhausted.increment();
+    }
+
+    void recordCircuitOpened() {
+        circuitOpenings.increment();
+    }
+
+    void recordShortCircuit() {
+        shortCircuitedRequests.increment();
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordCacheStore() {
+        cacheStores.increment();
+    }
+
+    void recordNameLookup(boolean loaded) {
+        if (loaded) {
+            nameCacheLoads.increment();
+        } else {
+            nameCacheHits.increment();
+        }
+    }
+
+    void recordCoalescedRequest() {
+        coalescedRequests.increment();
+    }
+
+    void recordRequestQueued() {
+        queuedRequests.increment();
+    }
+
+    void recordRequestDequeued(long waitNanos) {
+        queuedRequests.decrement();
+        if (waitNanos >= TimeUnit.MILLISECONDS.toNanos(1)) {
+            throttledRequests.increment();
+            queueWaitNanos.add(waitNanos);
+            maxQueueWaitNanos.accumulate(waitNanos);
+        }
+    }
+
+    void recordCircuitState(CircuitBreaker.State state) {
+        circuitState = state;
+    }
+
+    @Override
+    public String toString() {
+        return "WebClientMetrics [responses=" + getResponses() + ", compressedResponses=" + getCompressedResponses()
+                + ", compressedBytes=" + getCompressedBytes() + ", decompressedBytes=" + getDecompressedBytes()
+                + ", retries=" + getRetries() + ", retriesExhausted=" + getRetriesExhausted()
+                + ", circuitState=" + getCircuitState() + ", circuitOpenings=" + getCircuitOpenings()
+                + ", shortCircuitedRequests=" + getShortCircuitedRequests()
+                + ", cacheHits=" + getCacheHits() + ", cacheStores=" + getCacheStores()
+                + ", coalescedRequests=" + getCoalescedRequests()
+                + ", nameCacheHits=" + getNameCacheHits() + ", nameCacheLoads=" + getNameCacheLoads()
+                + ", queuedRequests=" + getQueuedRequests()
+                + ", throttledRequests=" + getThrottledRequests() + ", queueWaitMillis=" + getQueueWaitMillis()
+                + ", maxQueueWaitMillis=" + getMaxQueueWaitMillis() + "]";
+    }
+}
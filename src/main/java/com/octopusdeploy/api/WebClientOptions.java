@@ -0,0 +1,313 @@
+package com.octopusdeploy.api;
+
+import java.io.File;
+
+/**
+ * Tuning options for the HTTP transport used by an {@link AuthenticatedWebClient}.
+ * One instance is built per Octopus Deploy server; a value of zero (or less) for any
+ * numeric option selects its default.
+ */
+public class WebClientOptions {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60 * 1000;
+    public static final int DEFAULT_CALL_TIMEOUT_MILLIS = 5 * 60 * 1000;
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final int DEFAULT_RETRY_BASE_DELAY_MILLIS = 500;
+    public static final int DEFAULT_RETRY_MAX_DELAY_MILLIS = 15 * 1000;
+    public static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+    public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS = 30 * 1000;
+    public static final int DEFAULT_RESPONSE_CACHE_MAX_BYTES = 8 * 1024 * 1024;
+    public static final int DEFAULT_RESPONSE_CACHE_MAX_ENTRY_BYTES = 2 * 1024 * 1024;
+    public static final int DEFAULT_NAME_CACHE_TTL_MILLIS = 60 * 1000;
+    public static final int DEFAULT_CAPABILITIES_TTL_MILLIS = 10 * 60 * 1000;
+
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    /**
+     * The maximum number of connections that may be in use to the Octopus server at once.
+     * Requests beyond this limit wait for a connection to be released; see {@link ConnectionLimiter}.
+     * @return the maximum number of connections per route
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+    public WebClientOptions setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute > 0 ? maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        return this;
+    }
+
+    private boolean http2Enabled;
+    /**
+     * Whether requests should be multiplexed over HTTP/2 using the JDK HttpClient.
+     * Only honoured when Jenkins runs on Java 11 or later.
+     * @return true to use the HTTP/2 transport
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+    public WebClientOptions setHttp2Enabled(boolean http2Enabled) {
+        this.http2Enabled = http2Enabled;
+        return this;
+    }
+
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    /**
+     * How long to wait for a connection to the Octopus server to be established.
+     * @return the connect timeout in milliseconds
+     */
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+    public WebClientOptions setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis > 0 ? connectTimeoutMillis : DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        return this;
+    }
+
+    private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    /**
+     * How long to wait for the Octopus server to send data once a request has been sent.
+     * @return the read timeout in milliseconds
+     */
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+    public WebClientOptions setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis > 0 ? readTimeoutMillis : DEFAULT_READ_TIMEOUT_MILLIS;
+        return this;
+    }
+
+    private int callTimeoutMillis = DEFAULT_CALL_TIMEOUT_MILLIS;
+    /**
+     * The time budget for a single API call, from waiting for a connection to reading the last byte.
+     * A caller's own {@link Deadline} applies on top of this when it is sooner.
+     * @return the call timeout in milliseconds
+     */
+    public int getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+    public WebClientOptions setCallTimeoutMillis(int callTimeoutMillis) {
+        this.callTimeoutMillis = callTimeoutMillis > 0 ? callTimeoutMillis : DEFAULT_CALL_TIMEOUT_MILLIS;
+        return this;
+    }
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    /**
+     * The maximum number of times an idempotent request is sent when the server is temporarily unavailable,
+     * including the first attempt. One disables retries.
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    public WebClientOptions setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts > 0 ? maxAttempts : DEFAULT_MAX_ATTEMPTS;
+        return this;
+    }
+
+    private int retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+    /**
+     * The upper bound of the randomized delay before the first retry; it doubles with every further retry.
+     * @return the base retry delay in milliseconds
+     */
+    public int getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+    public WebClientOptions setRetryBaseDelayMillis(int retryBaseDelayMillis) {
+        this.retryBaseDelayMillis = retryBaseDelayMillis > 0 ? retryBaseDelayMillis : DEFAULT_RETRY_BASE_DELAY_MILLIS;
+        return this;
+    }
+
+    private int retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+    /**
+     * The longest delay before any retry, including delays asked for by the server with Retry-After.
+     * @return the maximum retry delay in milliseconds
+     */
+    public int getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+    public WebClientOptions setRetryMaxDelayMillis(int retryMaxDelayMillis) {
+        this.retryMaxDelayMillis = retryMaxDelayMillis > 0 ? retryMaxDelayMillis : DEFAULT_RETRY_MAX_DELAY_MILLIS;
+        return this;
+    }
+
+    private int circuitBreakerThreshold = DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+    /**
+     * The number of consecutive failed requests after which requests to the server are paused.
+     * @return the circuit breaker failure threshold
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+    public WebClientOptions setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold > 0 ? circuitBreakerThreshold : DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+        return this;
+    }
+
+    private int circuitBreakerOpenMillis = DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS;
+    /**
+     * How long requests to the server stay paused before a single request is let through to test it.
+     * @return the circuit breaker open duration in milliseconds
+     */
+    public int getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+    public WebClientOptions setCircuitBreakerOpenMillis(int circuitBreakerOpenMillis) {
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis > 0 ? circuitBreakerOpenMillis : DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS;
+        return this;
+    }
+
+    private int responseCacheMaxBytes = DEFAULT_RESPONSE_CACHE_MAX_BYTES;
+    /**
+     * The total size of the response bodies kept for conditional GET requests.
+     * @return the response cache size in bytes
+     */
+    public int getResponseCacheMaxBytes() {
+        return responseCacheMaxBytes;
+    }
+    public WebClientOptions setResponseCacheMaxBytes(int responseCacheMaxBytes) {
+        this.responseCacheMaxBytes = responseCacheMaxBytes > 0 ? responseCacheMaxBytes : DEFAULT_RESPONSE_CACHE_MAX_BYTES;
+        return this;
+    }
+
+    private int responseCacheMaxEntryBytes = DEFAULT_RESPONSE_CACHE_MAX_ENTRY_BYTES;
+    /**
+     * The size of the largest response body kept for conditional GET requests.
+     * Larger responses are downloaded in full every time.
+     * @return the largest cached response in bytes
+     */
+    public int getResponseCacheMaxEntryBytes() {
+        return responseCacheMaxEntryBytes;
+    }
+    public WebClientOptions setResponseCacheMaxEntryBytes(int responseCacheMaxEntryBytes) {
+        this.responseCacheMaxEntryBytes = responseCacheMaxEntryBytes > 0 ? responseCacheMaxEntryBytes : DEFAULT_RESPONSE_CACHE_MAX_ENTRY_BYTES;
+        return this;
+    }
+
+    private int nameCacheTtlMillis = DEFAULT_NAME_CACHE_TTL_MILLIS;
+    /**
+     * How long the projects, environments, tenants and channels found when resolving names are used for,
+     * whether they came from a search by name or from loading the whole collection.
+     * A name that is not found is looked up again only once the last answer is more than five seconds old.
+     * @return the name cache time to live in milliseconds
+     */
+    public int getNameCacheTtlMillis() {
+        return nameCacheTtlMillis;
+    }
+    public WebClientOptions setNameCacheTtlMillis(int nameCacheTtlMillis) {
+        this.nameCacheTtlMillis = nameCacheTtlMillis > 0 ? nameCacheTtlMillis : DEFAULT_NAME_CACHE_TTL_MILLIS;
+        return this;
+    }
+
+    private int capabilitiesTtlMillis = DEFAULT_CAPABILITIES_TTL_MILLIS;
+    /**
+     * How long what the server can do, such as whether it has spaces, is used for before the API root is read again.
+     * @return the capabilities time to live in milliseconds
+     */
+    public int getCapabilitiesTtlMillis() {
+        return capabilitiesTtlMillis;
+    }
+    public WebClientOptions setCapabilitiesTtlMillis(int capabilitiesTtlMillis) {
+        this.capabilitiesTtlMillis = capabilitiesTtlMillis > 0 ? capabilitiesTtlMillis : DEFAULT_CAPABILITIES_TTL_MILLIS;
+        return this;
+    }
+
+    private int asyncThreads;
+    /**
+     * The maximum number of asynchronous API calls that run at once. Defaults to the maximum number of connections.
+     * @return the number of threads used for asynchronous calls
+     */
+    public int getAsyncThreads() {
+        return asyncThreads > 0 ? asyncThreads : maxConnectionsPerRoute;
+    }
+    public WebClientOptions setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = Math.max(0, asyncThreads);
+        return this;
+    }
+
+    private int maxConcurrentRequests;
+    /**
+     * The maximum number of requests that may be in flight to the Octopus server at once, across every build.
+     * Requests over the limit wait in line. Zero means no limit.
+     * @return the maximum number of concurrent requests
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+    public WebClientOptions setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = Math.max(0, maxConcurrentRequests);
+        return this;
+    }
+
+    private double requestsPerSecond;
+    /**
+     * The maximum number of requests started per second, allowing bursts of up to one second's worth.
+     * Requests over the limit wait in line. Zero means no limit.
+     * @return the request rate limit
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+    public WebClientOptions setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = Math.max(0, requestsPerSecond);
+        return this;
+    }
+
+    private boolean ignoreSslErrors;
+    /**
+     * Whether any certificate presented by the Octopus server is accepted, whoever issued it and whichever host it names.
+     * @return true to skip certificate checks
+     */
+    public boolean isIgnoreSslErrors() {
+        return ignoreSslErrors;
+    }
+    public WebClientOptions setIgnoreSslErrors(boolean ignoreSslErrors) {
+        this.ignoreSslErrors = ignoreSslErrors;
+        return this;
+    }
+
+    private String trustedCertificates;
+    /**
+     * PEM encoded certificates that are trusted in addition to the JVM's certificate authorities,
+     * such as an internal CA or the Octopus server's own certificate.
+     * @return the certificates, or null for none
+     */
+    public String getTrustedCertificates() {
+        return trustedCertificates;
+    }
+    public WebClientOptions setTrustedCertificates(String trustedCertificates) {
+        this.trustedCertificates = trustedCertificates;
+        return this;
+    }
+
+    private File snapshotDirectory;
+    /**
+     * The directory snapshots of the names resolved against the Octopus server are kept in, so they survive a restart.
+     * Each server and API key gets a directory of its own inside it.
+     * @return the directory, or null to keep no snapshots
+     */
+    public File getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+    public WebClientOptions setSnapshotDirectory(File snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WebClientOptions [maxConnectionsPerRoute=" + maxConnectionsPerRoute + ", http2Enabled=" + http2Enabled
+                + ", connectTimeoutMillis=" + connectTimeoutMillis + ", readTimeoutMillis=" + readTimeoutMillis
+                + ", callTimeoutMillis=" + callTimeoutMillis + ", maxAttempts=" + maxAttempts
+                + ", retryBaseDelayMillis=" + retryBaseDelayMillis + ", retryMaxDelayMillis=" + retryMaxDelayMillis
+                + ", circuitBreakerThreshold=" + circuitBreakerThreshold
+                + ", circuitBreakerOpenMillis=" + circuitBreakerOpenMillis
+                + ", responseCacheMaxBytes=" + responseCacheMaxBytes + ", responseCacheMaxEntryBytes=" + responseCacheMaxEntryBytes
+                + ", nameCacheTtlMillis=" + nameCacheTtlMillis
+                + ", capabilitiesTtlMillis=" + capabilitiesTtlMillis
+                + ", asyncThreads=" + getAsyncThreads()
+                + ", maxConcurrentRequests=" + maxConcurrentRequests + ", requestsPerSecond=" + requestsPerSecond
+                + ", ignoreSslErrors=" + ignoreSslErrors
+                + ", trustedCertificates=" + (trustedCertificates != null && !trustedCertificates.trim().isEmpty())
+                + ", snapshotDirectory=" + snapshotDirectory + "]";
+    }
+}
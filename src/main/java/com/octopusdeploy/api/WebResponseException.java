@@ -0,0 +1,34 @@
+package com.octopusdeploy.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the Octopus server answers a request with an error response code.
+ */
+public class WebResponseException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+    /**
+     * The HTTP response code.
+     * @return The HTTP response code. Ex. 404 or 500
+     */
+    public int getCode() {
+        return code;
+    }
+
+    private final String content;
+    /**
+     * Content for the error response, if any.
+     * @return the body of the error response
+     */
+    public String getContent() {
+        return content;
+    }
+
+    public WebResponseException(int code, String content) {
+        super(String.format("Code %s - %n%s", code, content));
+        this.code = code;
+        this.content = content;
+    }
+}
@@ -0,0 +1,49 @@
+package com.octopusdeploy.api.data;
+
+import java.util.Map;
+
+/**
+ * What an Octopus server can do, as described by its API root document.
+ */
+public class ServerCapabilities {
+    private final String application;
+    public String getApplication() { return application; }
+
+    private final String version;
+    public String getVersion() { return version; }
+
+    private final Map<String, String> links;
+    /**
+     * The link templates of the API root, such as "Spaces" to "/api/spaces{/id}{?skip,ids,take,partialName}".
+     * @return the link templates by name
+     */
+    public Map<String, String> getLinks() { return links; }
+
+    public ServerCapabilities(String application, String version, Map<String, String> links) {
+        this.application = application;
+        this.version = version;
+        this.links = links;
+    }
+
+    /**
+     * Whether the server has spaces, which it does from Octopus 2019.1.
+     * @return true if the API root links to the spaces
+     */
+    public boolean getSupportsSpaces() {
+        return links.containsKey("Spaces");
+    }
+
+    /**
+     * Gets a link template of the API root.
+     * @param name the name of the link, such as "Spaces"
+     * @return the link template, or null if the server has no such link
+     */
+    public String getLink(String name) {
+        return links.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return "ServerCapabilities [application=" + application + ", version=" + version + ", links=" + links.keySet() + "]";
+    }
+}
@@ -1,5 +1,8 @@
 package com.octopusdeploy.api.data;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Represents a Tenant.
  */
@@ -14,14 +17,29 @@ public class Tenant {
         return id;
     }
 
+    private final Set<String> tenantTags;
+    /**
+     * The canonical names of the tags the tenant is tagged with, such as "Region/EU".
+     * @return the tag names, empty if the tenant is not tagged
+     */
+    public Set<String> getTenantTags() {
+        return tenantTags;
+    }
+
     public Tenant(String id, String name)
+    {
+        this(id, name, Collections.<String>emptySet());
+    }
+
+    public Tenant(String id, String name, Set<String> tenantTags)
     {
         this.id = id;
         this.name = name;
+        this.tenantTags = tenantTags;
     }
 
     @Override
     public String toString() {
-        return "Tenant [name=" + name + ", id=" + id + "]";
+        return "Tenant [name=" + name + ", id=" + id + ", tenantTags=" + tenantTags + "]";
     }
 }
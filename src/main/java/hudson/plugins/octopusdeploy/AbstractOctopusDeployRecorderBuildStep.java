@@ -1,6 +1,8 @@
 package hudson.plugins.octopusdeploy;
 
+import com.octopusdeploy.api.Deadline;
 import com.octopusdeploy.api.OctopusApi;
+import com.octopusdeploy.api.data.ServerCapabilities;
 import com.octopusdeploy.api.data.Space;
 import hudson.EnvVars;
 import hudson.Launcher;
@@ -28,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -73,9 +76,16 @@ public abstract class AbstractOctopusDeployRecorderBuildStep extends Builder {
         return spaceId;
     }
 
+    /**
+     * Whether the default server has spaces. Never waits for the server, as it is called while rendering the
+     * configuration page: until the server's capabilities have been read in the background, or if they can not
+     * be read, the space field is not shown.
+     * @return true if the space field should be shown
+     */
     public static Boolean hasSpaces() {
         try {
-            return getDefaultOctopusDeployServer().getApi().forSystem().getSupportsSpaces();
+            ServerCapabilities capabilities = getDefaultOctopusDeployServer().getApi().forSystem().getCachedCapabilities();
+            return capabilities != null && capabilities.getSupportsSpaces();
         } catch (Exception ex) {
             Logger.getLogger(AbstractOctopusDeployRecorderBuildStep.class.getName()).log(Level.SEVERE, null, ex);
             return false;
@@ -238,10 +248,10 @@ public abstract class AbstractOctopusDeployRecorderBuildStep extends Builder {
 
     /**
      * Get OctopusApi instance for this deployment
-     * @return the api for a given server
+     * @return the api for a given server, scoped to this deployment's space
      */
     public OctopusApi getApi() {
-        return getOctopusDeployServer().getApi();
+        return getOctopusDeployServer().getApi().forSpace(spaceId);
     }
 
     List<String> getCommonCommandArguments() {
@@ -377,7 +387,8 @@ public abstract class AbstractOctopusDeployRecorderBuildStep extends Builder {
         }
 
         protected OctopusApi getApiByServerId(String serverId){
-            return AbstractOctopusDeployRecorderPostBuildStep.getOctopusDeployServer(serverId).getApi();
+            return AbstractOctopusDeployRecorderPostBuildStep.getOctopusDeployServer(serverId).getApi()
+                    .withDeadline(Deadline.after(OctoConstants.Api.FORM_REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
         }
 
         public String getDefaultOctopusDeployServerId() {
@@ -1,7 +1,13 @@
 package hudson.plugins.octopusdeploy;
 
+import com.octopusdeploy.api.ApiExecutor;
+import com.octopusdeploy.api.Deadline;
+import com.octopusdeploy.api.NameResolver;
 import com.octopusdeploy.api.OctopusApi;
+import com.octopusdeploy.api.data.Environment;
+import com.octopusdeploy.api.data.ServerCapabilities;
 import com.octopusdeploy.api.data.Space;
+import com.octopusdeploy.api.data.Tenant;
 import hudson.EnvVars;
 import hudson.Launcher;
 import hudson.Proc;
@@ -27,8 +33,12 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -74,9 +84,16 @@ public abstract class AbstractOctopusDeployRecorderPostBuildStep extends Recorde
         return spaceId;
     }
 
+    /**
+     * Whether the default server has spaces. Never waits for the server, as it is called while rendering the
+     * configuration page: until the server's capabilities have been read in the background, or if they can not
+     * be read, the space field is not shown.
+     * @return true if the space field should be shown
+     */
     public static Boolean hasSpaces() {
         try {
-            return getDefaultOctopusDeployServer().getApi().forSystem().getSupportsSpaces();
+            ServerCapabilities capabilities = getDefaultOctopusDeployServer().getApi().forSystem().getCachedCapabilities();
+            return capabilities != null && capabilities.getSupportsSpaces();
         } catch (Exception ex) {
             Logger.getLogger(AbstractOctopusDeployRecorderPostBuildStep.class.getName()).log(Level.SEVERE, null, ex);
             return false;
@@ -239,10 +256,10 @@ public abstract class AbstractOctopusDeployRecorderPostBuildStep extends Recorde
 
     /**
      * Get OctopusApi instance for this deployment
-     * @return the api for a given server
+     * @return the api for a given server, scoped to this deployment's space
      */
     public OctopusApi getApi() {
-        return getOctopusDeployServer().getApi();
+        return getOctopusDeployServer().getApi().forSpace(spaceId);
     }
 
     List<String> getCommonCommandArguments() {
@@ -307,6 +324,44 @@ public abstract class AbstractOctopusDeployRecorderPostBuildStep extends Recorde
         return masks;
     }
 
+    /**
+     * Looks up the portal URLs of a release's deployments to each resolved environment, and to each resolved
+     * or tagged tenant when there are any. The lookups run at the same time.
+     * @param api the api scoped to the deployment's space
+     * @param serverUrl the Octopus server URL, without a trailing slash
+     * @param names the resolved project, environments, tenants and tenant tags
+     * @param releaseVersion the version of the deployed release
+     * @return the URLs of the deployments that were found
+     * @throws IOException if a lookup fails
+     */
+    List<String> getDeploymentPortalUrls(OctopusApi api, String serverUrl, NameResolver.Resolution names, String releaseVersion) throws IOException {
+        String projectId = names.getProject().getId();
+        Map<String, Tenant> tenants = new LinkedHashMap<>();
+        for (Tenant tenant : names.getTenants().values()) {
+            tenants.putIfAbsent(tenant.getId(), tenant);
+        }
+        for (Tenant tenant : names.getTaggedTenants()) {
+            tenants.putIfAbsent(tenant.getId(), tenant);
+        }
+        List<CompletableFuture<String>> lookups = new ArrayList<>();
+        for (Environment environment : names.getEnvironments().values()) {
+            if (tenants.isEmpty()) {
+                lookups.add(api.getDeploymentsApi().getPortalUrlForDeploymentAsync(projectId, releaseVersion, environment.getId(), null));
+            }
+            for (Tenant tenant : tenants.values()) {
+                lookups.add(api.getDeploymentsApi().getPortalUrlForDeploymentAsync(projectId, releaseVersion, environment.getId(), tenant.getId()));
+            }
+        }
+        List<String> portalUrls = new ArrayList<>();
+        for (CompletableFuture<String> lookup : lookups) {
+            String urlSuffix = ApiExecutor.await(lookup);
+            if (urlSuffix != null && !urlSuffix.isEmpty()) {
+                portalUrls.add(serverUrl + urlSuffix);
+            }
+        }
+        return portalUrls;
+    }
+
     public Result launchOcto(Launcher launcher, List<String> commands, Boolean[] masks, EnvVars environment, BuildListener listener) {
         Log log = new Log(listener);
         int exitCode = -1;
@@ -378,7 +433,8 @@ public abstract class AbstractOctopusDeployRecorderPostBuildStep extends Recorde
         }
 
         protected OctopusApi getApiByServerId(String serverId){
-            return AbstractOctopusDeployRecorderPostBuildStep.getOctopusDeployServer(serverId).getApi();
+            return AbstractOctopusDeployRecorderPostBuildStep.getOctopusDeployServer(serverId).getApi()
+                    .withDeadline(Deadline.after(OctoConstants.Api.FORM_REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
         }
 
         public String getDefaultOctopusDeployServerId() {
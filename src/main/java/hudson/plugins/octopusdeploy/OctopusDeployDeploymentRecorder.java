@@ -11,6 +11,7 @@ import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import com.octopusdeploy.api.data.Environment;
 import com.octopusdeploy.api.data.Project;
@@ -115,22 +116,22 @@ public class OctopusDeployDeploymentRecorder extends AbstractOctopusDeployRecord
         commands.add("--version");
         commands.add(releaseVersion);
 
+        final Iterable<String> tenantNameSplit = Splitter.on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .split(StringUtils.defaultString(tenant));
         if(StringUtils.isNotBlank(tenant)) {
-            Iterable<String> tenantsSplit = Splitter.on(',')
-                    .trimResults()
-                    .omitEmptyStrings()
-                    .split(tenant);
-            for(String t : tenantsSplit) {
+            for(String t : tenantNameSplit) {
                 commands.add("--tenant");
                 commands.add(t);
             }
         }
 
+        final Iterable<String> tenantTagsSplit = Splitter.on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .split(StringUtils.defaultString(tenantTag));
         if(StringUtils.isNotBlank(tenantTag)) {
-            Iterable<String> tenantTagsSplit = Splitter.on(',')
-                    .trimResults()
-                    .omitEmptyStrings()
-                    .split(tenantTag);
             for (String tag : tenantTagsSplit) {
                 commands.add("--tenanttag");
                 commands.add(tag);
@@ -160,22 +161,24 @@ public class OctopusDeployDeploymentRecorder extends AbstractOctopusDeployRecord
                         serverUrl = serverUrl.substring(0, serverUrl.length() - 1);
                     }
 
-                    OctopusApi api = getOctopusDeployServer(serverId).getApi().forSpace(spaceId);
-                    Project fullProject = api.getProjectsApi().getProjectByName(project, true);
-                    Environment fullEnvironment = api.getEnvironmentsApi().getEnvironmentByName(environment, true);
-
-                    String tenantId = null;
-                    if (tenant != null && !tenant.isEmpty()) {
-                        Tenant fullTenant = api.getTenantsApi().getTenantByName(tenant, true);
-                        tenantId = fullTenant.getId();
-                    }
-
-                    String urlSuffix = api.getDeploymentsApi().getPortalUrlForDeployment(fullProject.getId(), releaseVersion, fullEnvironment.getId(), tenantId);
-
-                    if (urlSuffix != null && !urlSuffix.isEmpty()) {
-                        String portalUrl = serverUrl + urlSuffix;
-                        log.info("Deployment executed: \n\t" + portalUrl);
-                        build.addAction(new BuildInfoSummary(BuildInfoSummary.OctopusDeployEventType.Deployment, portalUrl));
+                    OctopusApi api = getOctopusDeployServer(serverId).getApi()
+                            .withDeadline(Deadline.after(OctoConstants.Api.BUILD_STEP_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                            .forSpace(spaceId);
+                    NameResolver.Resolution names = api.getNameResolver().resolve(new NameResolver.Request()
+                            .setProject(project)
+                            .addEnvironments(environmentNameSplit)
+                            .addTenants(tenantNameSplit)
+                            .addTenantTags(tenantTagsSplit)
+                            .setIgnoreCase(true));
+                    if (!names.getMissingNames().isEmpty()) {
+                        // Octo has already deployed, so a name that can not be found only costs the links
+                        log.error("Unable to find " + String.join(", ", names.getMissingNames())
+                                + "; the links to the deployments are not shown.");
+                    } else {
+                        for (String portalUrl : getDeploymentPortalUrls(api, serverUrl, names, releaseVersion)) {
+                            log.info("Deployment executed: \n\t" + portalUrl);
+                            build.addAction(new BuildInfoSummary(BuildInfoSummary.OctopusDeployEventType.Deployment, portalUrl));
+                        }
                     }
                 }
             } catch (Exception ex) {
@@ -455,6 +458,23 @@ public class OctopusDeployDeploymentRecorder extends AbstractOctopusDeployRecord
             return names;
         }
 
+        /**
+         * Check that the tenant tag field only holds tags that exist.
+         * @param tenantTag The comma separated canonical names of the tenant tags.
+         * @param serverId The id of OctopusDeployServer in the configuration.
+         * @param spaceId The id of the space where to load this resource from
+         * @return FormValidation message if not ok.
+         */
+        public FormValidation doCheckTenantTag(@QueryParameter String tenantTag, @QueryParameter String serverId, @QueryParameter String spaceId) {
+            if (doCheckServerId(serverId).kind != FormValidation.Kind.OK) {
+                return FormValidation.warning(SERVER_ID_VALIDATION_MESSAGE);
+            }
+
+            OctopusApi api = getApiByServerId(serverId).forSpace(spaceId);
+            OctopusValidator validator = new OctopusValidator(api);
+            return validator.validateTenantTags(tenantTag);
+        }
+
         /**
          * Data binding that returns all possible tenant tags to be used in the tenant tag autocomplete.
          * @param serverId The id of OctopusDeployServer in the configuration.
@@ -470,12 +490,7 @@ public class OctopusDeployDeploymentRecorder extends AbstractOctopusDeployRecord
 
             OctopusApi api = getApiByServerId(serverId).forSpace(spaceId);
             try {
-                Set<TagSet> tagSets = api.getTagSetsApi().getAll();
-                for (TagSet tagSet : tagSets) {
-                    for (Tag tag : tagSet.getTags()) {
-                        names.add(tag.getCanonicalName());
-                    }
-                }
+                names.addAll(api.getTenantsApi().getTenantTagIndex().getCanonicalTagNames());
             } catch (Exception ex) {
                 Logger.getLogger(OctopusDeployReleaseRecorder.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -1,5 +1,6 @@
 package hudson.plugins.octopusdeploy;
 
+import com.octopusdeploy.api.SslContextFactory;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.model.Descriptor;
@@ -18,9 +19,12 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,6 +37,7 @@ public class OctopusDeployPlugin extends GlobalPluginConfiguration {
 
     @Extension
     public static final class DescriptorImpl extends Descriptor<GlobalConfiguration> {
+        public static final int DEFAULT_PREFETCH_CONCURRENCY = 2;
 
         private transient String apiKey;
 
@@ -67,6 +72,22 @@ public class OctopusDeployPlugin extends GlobalPluginConfiguration {
             octopusDeployServers = servers;
         }
 
+        /**
+         * How many seconds apart the names of every server are prefetched. Zero turns prefetching off.
+         */
+        private int prefetchInterval;
+        public int getPrefetchInterval() {
+            return prefetchInterval;
+        }
+
+        /**
+         * How many collections are loaded from a server at once while prefetching. Zero selects the default.
+         */
+        private int prefetchConcurrency;
+        public int getPrefetchConcurrency() {
+            return prefetchConcurrency > 0 ? prefetchConcurrency : DEFAULT_PREFETCH_CONCURRENCY;
+        }
+
         public DescriptorImpl() {
             load();
             loadLegacyOctopusDeployServerConfig();
@@ -190,6 +211,22 @@ public class OctopusDeployPlugin extends GlobalPluginConfiguration {
             return FormValidation.ok();
         }
 
+        /**
+         * Validate that the trusted certificates are:
+         *  - Empty, or
+         *  - A list of PEM encoded certificates
+         * @param trustedCertificates the PEM encoded certificates to trust for the Octopus Deploy server
+         * @return Form validation to present on the Jenkins UI
+         */
+        public FormValidation doCheckTrustedCertificates(@QueryParameter String trustedCertificates) {
+            try {
+                SslContextFactory.parseCertificates(trustedCertificates);
+            } catch (CertificateException ex) {
+                return FormValidation.error("Supplied certificates are invalid. Paste one or more PEM encoded certificates, each between BEGIN CERTIFICATE and END CERTIFICATE lines.");
+            }
+            return FormValidation.ok();
+        }
+
         @Override
         public boolean configure(StaplerRequest req, JSONObject formData) throws Descriptor.FormException {
             List<OctopusDeployServer> servers = null;
@@ -198,6 +235,24 @@ public class OctopusDeployPlugin extends GlobalPluginConfiguration {
             if (!json.isEmpty()) {
                 servers = req.bindJSONToList(OctopusDeployServer.class, json.get("servers"));
             }
+            prefetchInterval = Math.max(0, json.optInt("prefetchInterval", 0));
+            prefetchConcurrency = Math.max(0, json.optInt("prefetchConcurrency", 0));
+            // the bound servers are new instances; they keep the clients of the ones they replace if nothing changed
+            Map<String, OctopusDeployServer> previous = new HashMap<>();
+            for (OctopusDeployServer server : getOctopusDeployServers()) {
+                previous.put(server.getId(), server);
+            }
+            if (servers != null) {
+                for (OctopusDeployServer server : servers) {
+                    OctopusDeployServer replaced = previous.remove(server.getId());
+                    if (replaced != null) {
+                        server.replace(replaced);
+                    }
+                }
+            }
+            for (OctopusDeployServer removed : previous.values()) {
+                removed.retire();
+            }
             setOctopusDeployServers(servers);
 
             save();
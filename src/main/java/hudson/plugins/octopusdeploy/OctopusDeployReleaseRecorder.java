@@ -7,6 +7,8 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.octopusdeploy.api.data.Environment;
 import com.octopusdeploy.api.data.Project;
@@ -198,11 +200,19 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
             commands.add(channel);
         }
 
+        final Iterable<String> environmentNameSplit = Splitter.on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .split(StringUtils.defaultString(environment));
+        final Iterable<String> tenantSplit = Splitter.on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .split(StringUtils.defaultString(tenant));
+        final Iterable<String> tenantTagsSplit = Splitter.on(',')
+                .trimResults()
+                .omitEmptyStrings()
+                .split(StringUtils.defaultString(tenantTag));
         if (deployThisRelease && StringUtils.isNotBlank(environment)) {
-            final Iterable<String> environmentNameSplit = Splitter.on(',')
-                    .trimResults()
-                    .omitEmptyStrings()
-                    .split(environment);
             for(final String env : environmentNameSplit) {
                 commands.add("--deployTo");
                 commands.add(env);
@@ -213,10 +223,6 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
             }
 
             if (StringUtils.isNotBlank(tenant)) {
-                final Iterable<String> tenantSplit = Splitter.on(',')
-                        .trimResults()
-                        .omitEmptyStrings()
-                        .split(tenant);
                 for(final String t : tenantSplit) {
                     commands.add("--tenant");
                     commands.add(t);
@@ -224,10 +230,6 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
             }
 
             if (StringUtils.isNotBlank(tenantTag)) {
-                final Iterable<String> tenantTagsSplit = Splitter.on(',')
-                        .trimResults()
-                        .omitEmptyStrings()
-                        .split(tenantTag);
                 for(final String tag : tenantTagsSplit) {
                     commands.add("--tenanttag");
                     commands.add(tag);
@@ -308,27 +310,33 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
                 if (serverUrl.endsWith("/")) {
                     serverUrl = serverUrl.substring(0, serverUrl.length() - 1);
                 }
-                OctopusApi api = getOctopusDeployServer(serverId).getApi().forSpace(spaceId);
-                Project fullProject = api.getProjectsApi().getProjectByName(project, true);
-                String urlSuffix = api.getReleasesApi().getPortalUrlForRelease(fullProject.getId(), releaseVersion);
-                String portalUrl = serverUrl + urlSuffix;
-                log.info("Release created: \n\t" + portalUrl);
-                build.addAction(new BuildInfoSummary(BuildInfoSummary.OctopusDeployEventType.Release, portalUrl));
-
-                if(deployThisRelease)
-                {
-                    Environment fullEnvironment = api.getEnvironmentsApi().getEnvironmentByName(environment, true);
-
-                    String tenantId = null;
-                    if (tenant != null && !tenant.isEmpty()) {
-                        Tenant fullTenant = api.getTenantsApi().getTenantByName(tenant, true);
-                        tenantId = fullTenant.getId();
-                    }
+                OctopusApi api = getOctopusDeployServer(serverId).getApi()
+                        .withDeadline(Deadline.after(OctoConstants.Api.BUILD_STEP_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                        .forSpace(spaceId);
+                NameResolver.Request request = new NameResolver.Request()
+                        .setProject(project)
+                        .setIgnoreCase(true);
+                if (deployThisRelease) {
+                    request.addEnvironments(environmentNameSplit)
+                            .addTenants(tenantSplit)
+                            .addTenantTags(tenantTagsSplit);
+                }
+                NameResolver.Resolution names = api.getNameResolver().resolve(request);
+                if (!names.getMissingNames().isEmpty()) {
+                    // Octo has already created the release, so a name that can not be found only costs the links
+                    log.error("Unable to find " + String.join(", ", names.getMissingNames())
+                            + "; the links to the release and its deployments are not shown.");
+                } else {
+                    CompletableFuture<String> releaseUrlLookup = api.getReleasesApi().getPortalUrlForReleaseAsync(names.getProject().getId(), releaseVersion);
+                    List<String> deploymentUrls = deployThisRelease
+                            ? getDeploymentPortalUrls(api, serverUrl, names, releaseVersion)
+                            : Collections.<String>emptyList();
 
-                    String deploymenturlSuffix = api.getDeploymentsApi().getPortalUrlForDeployment(fullProject.getId(), releaseVersion, fullEnvironment.getId(), tenantId);
+                    String portalUrl = serverUrl + ApiExecutor.await(releaseUrlLookup);
+                    log.info("Release created: \n\t" + portalUrl);
+                    build.addAction(new BuildInfoSummary(BuildInfoSummary.OctopusDeployEventType.Release, portalUrl));
 
-                    if (urlSuffix != null && !urlSuffix.isEmpty()) {
-                        String portalDeploymentUrl = serverUrl + deploymenturlSuffix;
+                    for (String portalDeploymentUrl : deploymentUrls) {
                         log.info("Deployment executed: \n\t" + portalDeploymentUrl);
                         build.addAction(new BuildInfoSummary(BuildInfoSummary.OctopusDeployEventType.Deployment, portalDeploymentUrl));
                     }
@@ -702,7 +710,24 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
         }
 
         /**
-         * Data binding that returns all possible tenant names to be used in the tenant autocomplete.
+         * Check that the tenant tag field only holds tags that exist.
+         * @param tenantTag The comma separated canonical names of the tenant tags.
+         * @param serverId The id of OctopusDeployServer in the configuration.
+         * @param spaceId The id of the space where to load this resource from
+         * @return FormValidation message if not ok.
+         */
+        public FormValidation doCheckTenantTag(@QueryParameter String tenantTag, @QueryParameter String serverId, @QueryParameter String spaceId) {
+            if (doCheckServerId(serverId).kind != FormValidation.Kind.OK) {
+                return FormValidation.warning(SERVER_ID_VALIDATION_MESSAGE);
+            }
+
+            OctopusApi api = getApiByServerId(serverId).forSpace(spaceId);
+            OctopusValidator validator = new OctopusValidator(api);
+            return validator.validateTenantTags(tenantTag);
+        }
+
+        /**
+         * Data binding that returns all possible tenant tags to be used in the tenant tag autocomplete.
          * @param serverId The id of OctopusDeployServer in the configuration.
          * @param spaceId The id of the space where to load this resource from
          * @return ComboBoxModel
@@ -716,12 +741,7 @@ public class OctopusDeployReleaseRecorder extends AbstractOctopusDeployRecorderP
 
             OctopusApi api = getApiByServerId(serverId).forSpace(spaceId);
             try {
-                Set<TagSet> tagSets = api.getTagSetsApi().getAll();
-                for (TagSet tagSet : tagSets) {
-                    for (Tag tag : tagSet.getTags()) {
-                        names.add(tag.getCanonicalName());
-                    }
-                }
+                names.addAll(api.getTenantsApi().getTenantTagIndex().getCanonicalTagNames());
             } catch (Exception ex) {
                 Logger.getLogger(OctopusDeployReleaseRecorder.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -1,10 +1,16 @@
 package hudson.plugins.octopusdeploy;
 
 import com.octopusdeploy.api.OctopusApi;
+import com.octopusdeploy.api.WebClientOptions;
 import hudson.util.Secret;
+import jenkins.model.Jenkins;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author wbenayed
@@ -12,6 +18,8 @@ import java.io.Serializable;
 public class OctopusDeployServer implements Serializable {
     // This value should be incremented every time that this serializable's contract changes
     private static final long serialVersionUID = 1;
+    /** The directory in JENKINS_HOME that name cache snapshots are kept in. */
+    private static final String SNAPSHOT_DIRECTORY = "octopusdeploy-names";
             
     private final boolean isDefault;
     public boolean isDefault() {
@@ -38,15 +46,182 @@ public class OctopusDeployServer implements Serializable {
         return ignoreSslErrors;
     }
 
+    /**
+     * The maximum number of connections the API client may hold open to this server.
+     * Zero selects the default.
+     */
+    private int maxConnections;
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+    @DataBoundSetter
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = Math.max(0, maxConnections);
+    }
+
+    /**
+     * Whether API requests to this server should be multiplexed over HTTP/2 (requires Java 11 or later).
+     */
+    private boolean http2;
+    public boolean getHttp2() {
+        return http2;
+    }
+    @DataBoundSetter
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * How many seconds to wait for a connection to this server to be established. Zero selects the default.
+     */
+    private int connectTimeout;
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+    @DataBoundSetter
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = Math.max(0, connectTimeout);
+    }
+
+    /**
+     * How many seconds to wait for this server to send data before giving up on a request. Zero selects the default.
+     */
+    private int readTimeout;
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+    @DataBoundSetter
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = Math.max(0, readTimeout);
+    }
+
+    /**
+     * The maximum number of API requests in flight to this server at once, across all builds. Zero means no limit.
+     */
+    private int maxConcurrentRequests;
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+    @DataBoundSetter
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = Math.max(0, maxConcurrentRequests);
+    }
+
+    /**
+     * The maximum number of API requests started per second against this server, across all builds. Zero means no limit.
+     */
+    private int requestsPerSecond;
+    public int getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+    @DataBoundSetter
+    public void setRequestsPerSecond(int requestsPerSecond) {
+        this.requestsPerSecond = Math.max(0, requestsPerSecond);
+    }
+
+    /**
+     * How many seconds project, environment, tenant and channel names resolved against this server are cached for.
+     * Zero selects the default.
+     */
+    private int nameCacheTtl;
+    public int getNameCacheTtl() {
+        return nameCacheTtl;
+    }
+    @DataBoundSetter
+    public void setNameCacheTtl(int nameCacheTtl) {
+        this.nameCacheTtl = Math.max(0, nameCacheTtl);
+    }
+
+    /**
+     * Whether the names resolved against this server are also kept on disk in JENKINS_HOME, so that after a restart
+     * builds resolve them from the last snapshot while they are revalidated in the background.
+     */
+    private boolean persistentNameCache;
+    public boolean getPersistentNameCache() {
+        return persistentNameCache;
+    }
+    @DataBoundSetter
+    public void setPersistentNameCache(boolean persistentNameCache) {
+        this.persistentNameCache = persistentNameCache;
+    }
+
+    /**
+     * PEM encoded certificates trusted for API requests to this server in addition to the JVM's, such as an internal CA.
+     */
+    private String trustedCertificates;
+    public String getTrustedCertificates() {
+        return trustedCertificates;
+    }
+    @DataBoundSetter
+    public void setTrustedCertificates(String trustedCertificates) {
+        this.trustedCertificates = trustedCertificates == null || trustedCertificates.trim().isEmpty() ? null : trustedCertificates.trim();
+    }
+
     private transient OctopusApi api;
-    public OctopusApi getApi() {
-        ///TODO use better approach to achieve Laziness
+    public synchronized OctopusApi getApi() {
         if (api == null) {
-            api = new OctopusApi(url, apiKey.getPlainText());
+            api = new OctopusApi(url, apiKey.getPlainText(), getWebClientOptions());
         }
         return api;
     }
 
+    /**
+     * Shuts down the API client for this server, if one was created, once no call is in flight through it,
+     * so builds using it are not interrupted. A later call to {@link #getApi()} creates a fresh client.
+     */
+    public synchronized void retire() {
+        if (api != null) {
+            api.closeWhenIdle();
+            api = null;
+        }
+    }
+
+    /**
+     * Takes over the API client of the server this one replaces in the global configuration when it would be
+     * created with the same settings, so saving the configuration does not drop its connections and caches.
+     * Otherwise the old client is retired.
+     * @param previous the server this one replaces
+     */
+    public synchronized void replace(OctopusDeployServer previous) {
+        synchronized (previous) {
+            if (api == null && previous.api != null && hasSameApiSettings(previous)) {
+                api = previous.api;
+                previous.api = null;
+            } else {
+                previous.retire();
+            }
+        }
+    }
+
+    private boolean hasSameApiSettings(OctopusDeployServer other) {
+        return Objects.equals(url, other.url)
+                && Objects.equals(Secret.toString(apiKey), Secret.toString(other.apiKey))
+                && ignoreSslErrors == other.ignoreSslErrors
+                && maxConnections == other.maxConnections
+                && http2 == other.http2
+                && connectTimeout == other.connectTimeout
+                && readTimeout == other.readTimeout
+                && maxConcurrentRequests == other.maxConcurrentRequests
+                && requestsPerSecond == other.requestsPerSecond
+                && nameCacheTtl == other.nameCacheTtl
+                && persistentNameCache == other.persistentNameCache
+                && Objects.equals(trustedCertificates, other.trustedCertificates);
+    }
+
+    private WebClientOptions getWebClientOptions() {
+        return new WebClientOptions()
+                .setMaxConnectionsPerRoute(maxConnections)
+                .setHttp2Enabled(http2)
+                .setConnectTimeoutMillis((int)TimeUnit.SECONDS.toMillis(connectTimeout))
+                .setReadTimeoutMillis((int)TimeUnit.SECONDS.toMillis(readTimeout))
+                .setMaxConcurrentRequests(maxConcurrentRequests)
+                .setRequestsPerSecond(requestsPerSecond)
+                .setNameCacheTtlMillis((int)TimeUnit.SECONDS.toMillis(nameCacheTtl))
+                .setSnapshotDirectory(persistentNameCache ? new File(Jenkins.getInstance().getRootDir(), SNAPSHOT_DIRECTORY) : null)
+                .setIgnoreSslErrors(ignoreSslErrors)
+                .setTrustedCertificates(trustedCertificates);
+    }
+
     public OctopusDeployServer(String serverId, String url, Secret apiKey, boolean isDefault, boolean ignoreSslErrors) {
         this.id = serverId.trim();
         this.url = url.trim();
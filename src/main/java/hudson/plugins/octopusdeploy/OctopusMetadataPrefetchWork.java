@@ -0,0 +1,55 @@
+package hudson.plugins.octopusdeploy;
+
+import com.octopusdeploy.api.MetadataPrefetcher;
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefetches the projects, environments, tenants, tenant tags and channels of every space of every configured
+ * Octopus Deploy server into the server's caches, so builds and configuration pages do not wait on them.
+ * Runs every {@link OctopusDeployPlugin.DescriptorImpl#getPrefetchInterval()} seconds, and not at all while that is zero.
+ */
+@Extension
+public class OctopusMetadataPrefetchWork extends AsyncPeriodicWork {
+    /** How often the interval is checked, so a changed interval applies without a restart. */
+    private static final long CHECK_PERIOD_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private long lastRunMillis;
+
+    public OctopusMetadataPrefetchWork() {
+        super("Octopus Deploy metadata prefetch");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return CHECK_PERIOD_MILLIS;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        OctopusDeployPlugin.DescriptorImpl descriptor = Jenkins.getInstance().getDescriptorByType(OctopusDeployPlugin.DescriptorImpl.class);
+        if (descriptor == null || descriptor.getPrefetchInterval() <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastRunMillis < TimeUnit.SECONDS.toMillis(descriptor.getPrefetchInterval())) {
+            return;
+        }
+        lastRunMillis = now;
+
+        for (OctopusDeployServer server : descriptor.getOctopusDeployServers()) {
+            try {
+                MetadataPrefetcher.Result result = server.getApi().getMetadataPrefetcher(descriptor.getPrefetchConcurrency()).prefetch();
+                listener.getLogger().println(String.format("Prefetched %d collections from Octopus Deploy server '%s', %d failed",
+                        result.getLoaded(), server.getId(), result.getFailed()));
+            } catch (IOException | RuntimeException ex) {
+                listener.error("Unable to prefetch from Octopus Deploy server '%s': %s", server.getId(), ex.getMessage());
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package hudson.plugins.octopusdeploy;
 
 import com.octopusdeploy.api.data.Project;
-import com.octopusdeploy.api.data.Release;
 import com.octopusdeploy.api.*;
 import hudson.util.FormValidation;
 
@@ -9,8 +8,8 @@ import java.io.File;
 import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Validations on input for Octopus Deploy.
@@ -123,6 +122,51 @@ public class OctopusValidator {
         return FormValidation.ok();
     }
     
+    /**
+     * Provides validation on tenant tags.
+     * Validates:
+     *  Each comma separated tag exists in one of the tag sets of the space.
+     * Tags are checked against the space's cached tenant tag index, which also gives the number of tenants they target.
+     * @param tenantTags the comma separated canonical names of the tenant tags.
+     * @return FormValidation response
+     */
+    public FormValidation validateTenantTags(String tenantTags) {
+        if (tenantTags == null || tenantTags.trim().isEmpty()) {
+            return FormValidation.ok();
+        }
+        List<String> tags = new ArrayList<>();
+        for (String tag : tenantTags.split(",")) {
+            if (!tag.trim().isEmpty()) {
+                tags.add(tag.trim());
+            }
+        }
+        if (tags.isEmpty()) {
+            return FormValidation.ok();
+        }
+        for (String tag : tags) {
+            if (tag.contains("${")) {
+                return FormValidation.ok();
+            }
+        }
+        try {
+            TenantTagIndex index = api.getTenantsApi().getTenantTagIndex(tags);
+            for (String tag : tags) {
+                if (!index.isKnownTag(tag)) {
+                    return FormValidation.error("The '%s' tenant tag was not found.", tag);
+                }
+            }
+            int tenantCount = index.resolve(tags).size();
+            if (tenantCount == 0) {
+                return FormValidation.warning("No tenants have these tags.");
+            }
+            return FormValidation.ok("Matches %d tenant(s).", tenantCount);
+        } catch (IllegalArgumentException ex) {
+            return FormValidation.error(ex.getMessage());
+        } catch (IOException ex) {
+            return FormValidation.error(ex.getMessage());
+        }
+    }
+
     /**
      * Provides validation on releases.
      * Validates:
@@ -139,15 +183,7 @@ public class OctopusValidator {
             return FormValidation.error("Please provide a release version.");
         }
         try {
-            Set<Release> releases = api.getReleasesApi().getReleasesForProject(project.getId());
-
-            boolean found = false;
-            for (Release release : releases) {
-                if (releaseVersion.equals(release.getVersion()) ) {
-                    found = true;
-                    break;
-                }
-            }
+            boolean found = api.getReleasesApi().releaseExists(project.getId(), releaseVersion);
             if (found && existenceCheckReq == ReleaseExistenceRequirement.MustNotExist) {
                 return FormValidation.error("Release %s already exists for project '%s'!", releaseVersion, project.getName());
             }
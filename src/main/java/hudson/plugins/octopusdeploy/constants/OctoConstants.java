@@ -15,6 +15,13 @@ public class OctoConstants {
         }
     }
 
+    public static final class Api {
+        /** Time budget for the API calls made while filling in and validating a job's configuration form. */
+        public static final int FORM_REQUEST_TIMEOUT_SECONDS = 30;
+        /** Time budget for the lookups a post-build step makes before it starts the Octopus CLI. */
+        public static final int BUILD_STEP_LOOKUP_TIMEOUT_SECONDS = 120;
+    }
+
     public class Errors {
 
         public static final String INPUT_CANNOT_BE_BLANK_MESSAGE_FORMAT = "OCTOPUS-JENKINS-INPUT-ERROR-0002: %s can not be blank";
@@ -0,0 +1,89 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.octopusdeploy.api.data.DeploymentProcess;
+import com.octopusdeploy.api.data.DeploymentProcessStep;
+import com.octopusdeploy.api.data.DeploymentProcessStepAction;
+import com.octopusdeploy.api.data.Release;
+import com.octopusdeploy.api.data.SelectedPackage;
+import com.octopusdeploy.api.data.Tag;
+import com.octopusdeploy.api.data.TagSet;
+import com.octopusdeploy.api.data.Tenant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CodecsTest {
+
+    private static <T> T roundTrip(Codec<T> codec, T value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.encode(new DataOutputStream(bytes), value);
+        return codec.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testReleaseRoundTripsWithNullsAndUnicode() throws IOException {
+        Release release = roundTrip(Codecs.RELEASE, new Release("Releases-1", "Projects-1", null, "notes ü ☃", "1.0.0+build"));
+        assertEquals("Releases-1", release.getId());
+        assertNull(release.getChannelId());
+        assertEquals("notes ü ☃", release.getReleaseNotes());
+        assertEquals("1.0.0+build", release.getVersion());
+    }
+
+    @Test
+    public void testTagSetRoundTripsWithItsTags() throws IOException {
+        TagSet tagSet = new TagSet("TagSets-1", "Region", null, -3, new HashSet<>(Arrays.asList(
+                new Tag("Tags-1", "EU", "Region/EU", 2))));
+        TagSet decoded = roundTrip(Codecs.TAG_SET, tagSet);
+        assertEquals(-3, decoded.getSortOrder());
+        assertEquals("Region/EU", decoded.getTags().iterator().next().getCanonicalName());
+    }
+
+    @Test
+    public void testTenantRoundTripsWithItsTags() throws IOException {
+        Tenant tenant = Codecs.TENANT.read(new JsonReader(new StringReader(
+                "{\"Id\":\"Tenants-1\",\"Name\":\"Acme\",\"TenantTags\":[\"Region/EU\",\"Tier/Gold\"],\"ProjectEnvironments\":{}}")));
+        Tenant decoded = roundTrip(Codecs.TENANT, tenant);
+        assertEquals("Acme", decoded.getName());
+        assertEquals(new HashSet<>(Arrays.asList("Region/EU", "Tier/Gold")), decoded.getTenantTags());
+        assertTrue(roundTrip(Codecs.TENANT, new Tenant("Tenants-2", "Untagged")).getTenantTags().isEmpty());
+    }
+
+    @Test
+    public void testDeploymentProcessRoundTrips() throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("Octopus.Action.Package.PackageId", "app");
+        properties.put("Empty", null);
+        DeploymentProcessStepAction action = new DeploymentProcessStepAction("Actions-1", "Deploy", "Octopus.TentaclePackage", properties);
+        DeploymentProcess process = new DeploymentProcess("DeploymentProcess-Projects-1", "Projects-1",
+                new HashSet<>(Collections.singleton(new DeploymentProcessStep("Steps-1", "Deploy", new HashSet<>(Collections.singleton(action))))));
+        DeploymentProcess decoded = roundTrip(Codecs.DEPLOYMENT_PROCESS, process);
+        DeploymentProcessStepAction decodedAction = decoded.getSteps().iterator().next().getActions().iterator().next();
+        assertEquals(properties, decodedAction.getProperties());
+        assertEquals("Projects-1", decoded.getProjectId());
+    }
+
+    @Test
+    public void testSelectedPackageIsReadFromTemplatesAndWrittenForReleases() throws IOException {
+        SelectedPackage fromTemplate = Codecs.SELECTED_PACKAGE.read(new JsonReader(new StringReader(
+                "{\"StepName\":\"Deploy\",\"PackageId\":\"app\",\"PackageReferenceName\":\"\",\"VersionSelectedLastRelease\":\"1.2.3\",\"IsResolvable\":true}")));
+        assertEquals("Deploy", fromTemplate.getStepName());
+        assertEquals("1.2.3", fromTemplate.getVersion());
+
+        StringWriter out = new StringWriter();
+        Codecs.SELECTED_PACKAGE.write(new JsonWriter(out), fromTemplate);
+        assertEquals("{\"StepName\":\"Deploy\",\"ActionName\":\"Deploy\",\"PackageReferenceName\":\"\",\"Version\":\"1.2.3\"}", out.toString());
+    }
+}
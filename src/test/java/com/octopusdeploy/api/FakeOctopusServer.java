@@ -0,0 +1,731 @@
+package com.octopusdeploy.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process stand-in for an Octopus Deploy server, for testing and benchmarking the API client offline.
+ * Serves the API root, spaces, projects, tenants, tag sets, environments, channels, releases, deployments and tasks
+ * from a generated data set, both with and without a space in the path.
+ * Latency and server errors can be injected, and GET responses carry an ETag so conditional requests
+ * are answered with 304 Not Modified.
+ */
+public class FakeOctopusServer implements Closeable {
+    public static final String API_KEY = "API-FAKEOCTOPUSSERVERAPIKEY01";
+    public static final String SPACE_ID = "Spaces-1";
+
+    private static final Pattern SPACE_PREFIX = Pattern.compile("^(Spaces-\\d+)(/|$)");
+    private static final Pattern PROJECT_RELEASES = Pattern.compile("^projects/([^/]+)/releases$");
+    private static final Pattern PROJECT_RELEASE = Pattern.compile("^projects/([^/]+)/releases/([^/]+)$");
+    private static final Pattern PROJECT_CHANNELS = Pattern.compile("^projects/([^/]+)/channels$");
+    private static final Pattern TASK = Pattern.compile("^tasks/([^/]+)$");
+    private static final int DEFAULT_TAKE = 30;
+
+    private int projects = 10;
+    private int tenants = 10;
+    private int environments = 3;
+    private int releasesPerProject = 5;
+    private volatile int latencyMillis;
+    private volatile int bodyStallMillis;
+    private volatile String contentEncoding;
+    private volatile boolean rawDeflate;
+    private volatile double errorRate;
+    private volatile int errorCode = 503;
+    private long seed = 1;
+    private boolean partialNameSupported = true;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Random random;
+    private final ConcurrentMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final LongAdder notModifiedResponses = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final List<JsonObject> createdReleases = Collections.synchronizedList(new ArrayList<>());
+    private final List<JsonObject> createdDeployments = Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentMap<String, String> createdReleaseVersions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1000);
+
+    /**
+     * The number of projects served by projects/all, with ids Projects-1 to Projects-n and names "Project 1" to "Project n".
+     * @param projects the number of projects
+     * @return this server
+     */
+    public FakeOctopusServer setProjects(int projects) {
+        this.projects = projects;
+        return this;
+    }
+
+    /**
+     * The number of tenants served by tenants/all, with ids Tenants-1 to Tenants-n and names "Tenant 1" to "Tenant n".
+     * Odd tenants are tagged Region/EU and even ones Region/US; every third tenant is also tagged Tier/Gold.
+     * @param tenants the number of tenants
+     * @return this server
+     */
+    public FakeOctopusServer setTenants(int tenants) {
+        this.tenants = tenants;
+        return this;
+    }
+
+    /**
+     * The number of environments served by environments/all, with ids Environments-1 to Environments-n.
+     * @param environments the number of environments
+     * @return this server
+     */
+    public FakeOctopusServer setEnvironments(int environments) {
+        this.environments = environments;
+        return this;
+    }
+
+    /**
+     * The number of releases each project has, with versions 1.0.1 to 1.0.n, newest first.
+     * @param releasesPerProject the number of releases per project
+     * @return this server
+     */
+    public FakeOctopusServer setReleasesPerProject(int releasesPerProject) {
+        this.releasesPerProject = releasesPerProject;
+        return this;
+    }
+
+    /**
+     * How long the server waits before answering each request. May be changed while the server runs.
+     * @param latencyMillis the delay in milliseconds
+     * @return this server
+     */
+    public FakeOctopusServer setLatencyMillis(int latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    /**
+     * Compresses successful responses with "gzip" or "deflate" when the request accepts it. May be changed while the server runs.
+     * @param contentEncoding the encoding, or null to send bodies uncompressed
+     * @return this server
+     */
+    public FakeOctopusServer setContentEncoding(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+        return this;
+    }
+
+    /**
+     * Whether deflate bodies are sent as raw deflate data, as some servers do, instead of as a zlib stream.
+     * @param rawDeflate true to leave out the zlib header and checksum
+     * @return this server
+     */
+    public FakeOctopusServer setRawDeflate(boolean rawDeflate) {
+        this.rawDeflate = rawDeflate;
+        return this;
+    }
+
+    /**
+     * How long the server pauses half way through sending each response body. May be changed while the server runs.
+     * @param bodyStallMillis the pause in milliseconds
+     * @return this server
+     */
+    public FakeOctopusServer setBodyStallMillis(int bodyStallMillis) {
+        this.bodyStallMillis = bodyStallMillis;
+        return this;
+    }
+
+    /**
+     * The fraction of requests answered with {@link #setErrorCode(int)} instead of their response.
+     * May be changed while the server runs.
+     * @param errorRate between 0 for no errors and 1 for every request
+     * @return this server
+     */
+    public FakeOctopusServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * The status code of injected errors; 503 Service Unavailable unless set.
+     * @param errorCode the status code
+     * @return this server
+     */
+    public FakeOctopusServer setErrorCode(int errorCode) {
+        this.errorCode = errorCode;
+        return this;
+    }
+
+    /**
+     * The seed that decides which requests fail, so runs with the same requests fail the same way.
+     * @param seed the random seed
+     * @return this server
+     */
+    public FakeOctopusServer setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Whether collections are filtered by the partialName query parameter. Older servers ignore it.
+     * @param partialNameSupported false to ignore the filter
+     * @return this server
+     */
+    public FakeOctopusServer setPartialNameSupported(boolean partialNameSupported) {
+        this.partialNameSupported = partialNameSupported;
+        return this;
+    }
+
+    /**
+     * Starts listening on a free port on the loopback interface.
+     * @return this server
+     * @throws IOException if the server can not be started
+     */
+    public FakeOctopusServer start() throws IOException {
+        random = new Random(seed);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Fake Octopus server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * The URL of the server, to pass as the Octopus host.
+     * @return the URL, ending with a slash
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * The number of requests received, including those answered with an injected error.
+     * @return the request count
+     */
+    public long getRequestCount() {
+        long count = 0;
+        for (LongAdder adder : requestCounts.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    /**
+     * The number of requests received for one endpoint, with or without a space.
+     * @param method the request method
+     * @param endpoint the path after /api/ and the space, without the query, such as "projects/all"
+     * @return the request count
+     */
+    public long getRequestCount(String method, String endpoint) {
+        LongAdder adder = requestCounts.get(method + " " + endpoint);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.sum();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * The request bodies of the releases created through the server, in the order they were received.
+     * @return the release requests
+     */
+    public List<JsonObject> getCreatedReleases() {
+        synchronized (createdReleases) {
+            return new ArrayList<>(createdReleases);
+        }
+    }
+
+    /**
+     * The request bodies of the deployments created through the server, in the order they were received.
+     * @return the deployment requests
+     */
+    public List<JsonObject> getCreatedDeployments() {
+        synchronized (createdDeployments) {
+            return new ArrayList<>(createdDeployments);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            URI uri = exchange.getRequestURI();
+            // a host URL ending with a slash gives paths like //api/..., which parse as an authority
+            String path = (uri.getScheme() == null && uri.getAuthority() != null ? "/" + uri.getAuthority() : "")
+                    + uri.getPath();
+            path = path.replaceAll("/+", "/");
+            if (!path.equals("/api") && !path.startsWith("/api/")) {
+                send(exchange, 404, error("Not found: " + path));
+                return;
+            }
+            String endpoint = path.length() > "/api/".length() ? path.substring("/api/".length()) : "";
+            Matcher space = SPACE_PREFIX.matcher(endpoint);
+            if (space.find()) {
+                endpoint = endpoint.substring(space.end());
+            }
+            if (endpoint.endsWith("/")) {
+                endpoint = endpoint.substring(0, endpoint.length() - 1);
+            }
+            String method = exchange.getRequestMethod();
+            requestCounts.computeIfAbsent(method + " " + endpoint, key -> new LongAdder()).increment();
+
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (!API_KEY.equals(exchange.getRequestHeaders().getFirst("X-Octopus-ApiKey"))) {
+                send(exchange, 401, error("You must be logged in to perform this action."));
+                return;
+            }
+            if (shouldFail()) {
+                injectedErrors.increment();
+                send(exchange, errorCode, error("Injected error"));
+                return;
+            }
+            Map<String, String> query = parseQuery(uri.getRawQuery());
+            if ("GET".equals(method)) {
+                byte[] body = get(endpoint, query);
+                if (body == null) {
+                    send(exchange, 404, error("The resource '" + endpoint + "' was not found."));
+                } else {
+                    sendWithETag(exchange, body);
+                }
+            } else if ("POST".equals(method)) {
+                JsonObject request = new JsonParser().parse(readBody(exchange)).getAsJsonObject();
+                byte[] body = post(endpoint, request);
+                if (body == null) {
+                    send(exchange, 404, error("The resource '" + endpoint + "' was not found."));
+                } else {
+                    send(exchange, 201, body);
+                }
+            } else {
+                send(exchange, 405, error("Method not allowed."));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            send(exchange, 500, error(ex.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean shouldFail() {
+        if (errorRate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < errorRate;
+        }
+    }
+
+    private byte[] get(String endpoint, Map<String, String> query) throws IOException {
+        switch (endpoint) {
+            case "":
+                return json(json -> {
+                    json.beginObject();
+                    json.name("Application").value("Octopus Deploy");
+                    json.name("Version").value("2020.1.0");
+                    json.name("Links").beginObject();
+                    json.name("Self").value("/api");
+                    json.name("Spaces").value("/api/spaces{/id}{?skip,ids,take,partialName}");
+                    json.endObject();
+                    json.endObject();
+                });
+            case "spaces/all":
+                return json(json -> {
+                    json.beginArray();
+                    json.beginObject().name("Id").value(SPACE_ID).name("Name").value("Default").endObject();
+                    json.endArray();
+                });
+            case "projects/all":
+                return namedArray("Projects", "Project", projects);
+            case "projects":
+                return namedPage("Projects", "Project", projects, query);
+            case "tenants/all":
+                return namedArray("Tenants", "Tenant", tenants);
+            case "tenants":
+                return namedPage("Tenants", "Tenant", tenants, query);
+            case "tagsets/all":
+                return json(json -> {
+                    json.beginArray();
+                    writeTagSet(json, "TagSets-1", "Region", 0, "EU", "US");
+                    writeTagSet(json, "TagSets-2", "Tier", 1, "Gold", "Silver");
+                    json.endArray();
+                });
+            case "environments/all":
+                return namedArray("Environments", "Environment", environments);
+            case "environments":
+                return namedPage("Environments", "Environment", environments, query);
+            case "deployments":
+                return deployments(query);
+            default:
+                break;
+        }
+        Matcher matcher = PROJECT_RELEASES.matcher(endpoint);
+        if (matcher.matches()) {
+            return hasProject(matcher.group(1)) ? releases(matcher.group(1), query) : null;
+        }
+        matcher = PROJECT_RELEASE.matcher(endpoint);
+        if (matcher.matches()) {
+            String projectId = matcher.group(1);
+            String version = matcher.group(2);
+            for (int i = releasesPerProject; i >= 1; i--) {
+                if (hasProject(projectId) && version.equals(releaseVersion(i))) {
+                    int number = i;
+                    return json(json -> writeRelease(json, projectId, number));
+                }
+            }
+            return null;
+        }
+        matcher = PROJECT_CHANNELS.matcher(endpoint);
+        if (matcher.matches()) {
+            String projectId = matcher.group(1);
+            return hasProject(projectId) ? json(json -> {
+                json.beginObject();
+                json.name("Items").beginArray();
+                json.beginObject();
+                json.name("Id").value("Channels-" + projectNumber(projectId));
+                json.name("Name").value("Default");
+                json.name("Description").value("");
+                json.name("ProjectId").value(projectId);
+                json.name("IsDefault").value(true);
+                json.endObject();
+                json.endArray();
+                json.endObject();
+            }) : null;
+        }
+        matcher = TASK.matcher(endpoint);
+        if (matcher.matches()) {
+            String taskId = matcher.group(1);
+            return json(json -> {
+                json.beginObject();
+                json.name("Id").value(taskId);
+                json.name("Name").value("Deploy");
+                json.name("Description").value("Deploy release");
+                json.name("State").value("Success");
+                json.name("IsCompleted").value(true);
+                json.endObject();
+            });
+        }
+        return null;
+    }
+
+    private byte[] post(String endpoint, JsonObject request) throws IOException {
+        int id = nextId.incrementAndGet();
+        switch (endpoint) {
+            case "releases":
+                createdReleases.add(request);
+                createdReleaseVersions.put("Releases-" + id, String.valueOf(string(request, "Version")));
+                return json(json -> {
+                    json.beginObject();
+                    json.name("Id").value("Releases-" + id);
+                    json.name("ProjectId").value(string(request, "ProjectId"));
+                    json.name("Version").value(string(request, "Version"));
+                    json.endObject();
+                });
+            case "deployments":
+                createdDeployments.add(request);
+                return json(json -> {
+                    json.beginObject();
+                    json.name("Id").value("Deployments-" + id);
+                    json.name("ReleaseId").value(string(request, "ReleaseId"));
+                    json.name("EnvironmentId").value(string(request, "EnvironmentId"));
+                    json.name("TaskId").value("ServerTasks-" + id);
+                    json.endObject();
+                });
+            default:
+                return null;
+        }
+    }
+
+    private byte[] namedArray(String type, String name, int count) throws IOException {
+        return json(json -> {
+            json.beginArray();
+            for (int i = 1; i <= count; i++) {
+                writeNamed(json, type, name, i);
+            }
+            json.endArray();
+        });
+    }
+
+    private byte[] namedPage(String type, String name, int count, Map<String, String> query) throws IOException {
+        String partialName = partialNameSupported ? query.get("partialName") : null;
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            if (partialName == null || (name + " " + i).toLowerCase().contains(partialName.toLowerCase())) {
+                matches.add(i);
+            }
+        }
+        int skip = intParameter(query, "skip", 0);
+        int take = intParameter(query, "take", DEFAULT_TAKE);
+        return json(json -> {
+            json.beginObject();
+            json.name("ItemType").value(type.substring(0, type.length() - 1));
+            json.name("TotalResults").value(matches.size());
+            json.name("ItemsPerPage").value(take);
+            json.name("Items").beginArray();
+            for (int i = skip; i < matches.size() && i < skip + take; i++) {
+                writeNamed(json, type, name, matches.get(i));
+            }
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    private static void writeNamed(JsonWriter json, String type, String name, int number) throws IOException {
+        json.beginObject();
+        json.name("Id").value(type + "-" + number);
+        json.name("Name").value(name + " " + number);
+        json.name("Description").value("");
+        if (type.equals("Tenants")) {
+            json.name("TenantTags").beginArray();
+            json.value(number % 2 == 1 ? "Region/EU" : "Region/US");
+            if (number % 3 == 0) {
+                json.value("Tier/Gold");
+            }
+            json.endArray();
+        }
+        json.name("Links").beginObject().name("Self").value("/api/" + type.toLowerCase() + "/" + type + "-" + number).endObject();
+        json.endObject();
+    }
+
+    private static void writeTagSet(JsonWriter json, String id, String name, int sortOrder, String... tags) throws IOException {
+        json.beginObject();
+        json.name("Id").value(id);
+        json.name("Name").value(name);
+        json.name("SortOrder").value(sortOrder);
+        json.name("Tags").beginArray();
+        for (int i = 0; i < tags.length; i++) {
+            json.beginObject();
+            json.name("Id").value(id + "-" + i);
+            json.name("Name").value(tags[i]);
+            json.name("CanonicalTagName").value(name + "/" + tags[i]);
+            json.name("SortOrder").value(i);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private byte[] releases(String projectId, Map<String, String> query) throws IOException {
+        int skip = intParameter(query, "skip", 0);
+        int take = intParameter(query, "take", DEFAULT_TAKE);
+        return json(json -> {
+            json.beginObject();
+            json.name("ItemType").value("Release");
+            json.name("TotalResults").value(releasesPerProject);
+            json.name("ItemsPerPage").value(take);
+            json.name("NumberOfPages").value(take > 0 ? (releasesPerProject + take - 1) / take : 0);
+            json.name("Items").beginArray();
+            // newest first, as Octopus returns them
+            for (int i = releasesPerProject - skip; i >= 1 && i > releasesPerProject - skip - take; i--) {
+                writeRelease(json, projectId, i);
+            }
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    private void writeRelease(JsonWriter json, String projectId, int number) throws IOException {
+        json.beginObject();
+        json.name("Id").value("Releases-" + projectNumber(projectId) + "-" + number);
+        json.name("ProjectId").value(projectId);
+        json.name("ChannelId").value("Channels-" + projectNumber(projectId));
+        json.name("Version").value(releaseVersion(number));
+        json.name("ReleaseNotes").value("Release notes for " + releaseVersion(number));
+        json.name("Links").beginObject()
+                .name("Web").value("/app#/projects/" + projectId + "/releases/" + releaseVersion(number))
+                .endObject();
+        json.endObject();
+    }
+
+    private byte[] deployments(Map<String, String> query) throws IOException {
+        List<JsonObject> deployments = getCreatedDeployments();
+        return json(json -> {
+            json.beginObject();
+            json.name("Items").beginArray();
+            for (int i = deployments.size() - 1; i >= 0; i--) {
+                JsonObject deployment = deployments.get(i);
+                if (query.containsKey("environments") && !query.get("environments").equals(string(deployment, "EnvironmentId"))) {
+                    continue;
+                }
+                json.beginObject();
+                json.name("Id").value("Deployments-" + (i + 1));
+                json.name("EnvironmentId").value(string(deployment, "EnvironmentId"));
+                json.name("Changes").beginArray();
+                String releaseId = String.valueOf(string(deployment, "ReleaseId"));
+                json.beginObject().name("Version").value(createdReleaseVersions.getOrDefault(releaseId, releaseId)).endObject();
+                json.endArray();
+                json.name("Links").beginObject().name("Web").value("/app#/deployments/Deployments-" + (i + 1)).endObject();
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    private boolean hasProject(String projectId) {
+        int number = projectNumber(projectId);
+        return number >= 1 && number <= projects;
+    }
+
+    private static int projectNumber(String projectId) {
+        try {
+            return Integer.parseInt(projectId.substring(projectId.indexOf('-') + 1));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
+            return -1;
+        }
+    }
+
+    private static String releaseVersion(int number) {
+        return "1.0." + number;
+    }
+
+    private static String string(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        try {
+            return query.containsKey(name) ? Integer.parseInt(query.get(name)) : defaultValue;
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[AuthenticatedWebClient.BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String message) {
+        try {
+            return json(json -> {
+                json.beginObject();
+                json.name("ErrorMessage").value(message);
+                json.name("Errors").beginArray().value(message).endArray();
+                json.endObject();
+            });
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static byte[] json(RequestBody.JsonContent content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        content.write(json);
+        json.flush();
+        return out.toByteArray();
+    }
+
+    private byte[] compress(String encoding, byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = "gzip".equals(encoding)
+                ? new GZIPOutputStream(compressed)
+                : new DeflaterOutputStream(compressed, new Deflater(Deflater.DEFAULT_COMPRESSION, rawDeflate))) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void sendWithETag(HttpExchange exchange, byte[] body) throws IOException {
+        String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.increment();
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, body);
+    }
+
+    private void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        String encoding = contentEncoding;
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (code == 200 && encoding != null && accepted != null && accepted.contains(encoding)) {
+            body = compress(encoding, body);
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int stallAt = bodyStallMillis > 0 ? body.length / 2 : body.length;
+            out.write(body, 0, stallAt);
+            // once the fixed length has been written even an empty write fails, and the server drops the connection
+            if (stallAt < body.length) {
+                out.flush();
+                try {
+                    Thread.sleep(bodyStallMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                out.write(body, stallAt, body.length - stallAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.octopusdeploy.api;
+
+import com.octopusdeploy.api.data.Channel;
+import com.octopusdeploy.api.data.Environment;
+import com.octopusdeploy.api.data.Project;
+import com.octopusdeploy.api.data.Release;
+import com.octopusdeploy.api.data.ServerCapabilities;
+import com.octopusdeploy.api.data.TagSet;
+import com.octopusdeploy.api.data.Task;
+import com.octopusdeploy.api.data.Tenant;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * OctopusApi tests against a {@link FakeOctopusServer}
+ */
+public class OctopusApiTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeOctopusServer server;
+    private OctopusApi api;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeOctopusServer().setProjects(50).start();
+    }
+
+    @After
+    public void tearDown() {
+        if (api != null) {
+            api.close();
+        }
+        server.close();
+    }
+
+    private OctopusApi createApi(WebClientOptions options) {
+        api = new OctopusApi(server.getUrl(), FakeOctopusServer.API_KEY, options);
+        return api;
+    }
+
+    @Test
+    public void testGetAllProjectsInSpace() throws IOException {
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        Set<Project> projects = spaceApi.getProjectsApi().getAllProjects();
+        assertEquals(50, projects.size());
+        assertEquals(1, server.getRequestCount("GET", "projects/all"));
+    }
+
+    @Test
+    public void testRepeatedGetIsAnsweredFromCache() throws IOException {
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        Set<Environment> first = spaceApi.getEnvironmentsApi().getAllEnvironments();
+        Set<Environment> second = spaceApi.getEnvironmentsApi().getAllEnvironments();
+        assertEquals(first.size(), second.size());
+        assertEquals(2, server.getRequestCount("GET", "environments/all"));
+        assertEquals(1, server.getNotModifiedResponses());
+        assertEquals(1, api.getMetrics().getCacheHits());
+    }
+
+    @Test
+    public void testCompressedResponsesAreDecoded() throws IOException {
+        server.setTenants(12).setEnvironments(8);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        server.setContentEncoding("gzip");
+        assertEquals(50, spaceApi.getProjectsApi().getAllProjects().size());
+        server.setContentEncoding("deflate");
+        assertEquals(8, spaceApi.getEnvironmentsApi().getAllEnvironments().size());
+        server.setRawDeflate(true);
+        assertEquals(12, spaceApi.getTenantsApi().getAllTenants().size());
+        assertEquals(3, api.getMetrics().getCompressedResponses());
+        assertTrue(api.getMetrics().getCompressedBytes() < api.getMetrics().getDecompressedBytes());
+    }
+
+    @Test
+    public void testWholeListsOfProjectsAreNotCached() throws IOException {
+        server.setProjects(2000);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals(2000, spaceApi.getProjectsApi().getAllProjects().size());
+        assertEquals(2000, spaceApi.getProjectsApi().getAllProjects().size());
+        assertEquals(2, server.getRequestCount("GET", "projects/all"));
+        assertEquals(0, server.getNotModifiedResponses());
+        assertEquals(0, api.getWebClient().getResponseCache().size());
+    }
+
+    @Test
+    public void testUnavailableServerIsRetried() throws IOException {
+        server.setErrorRate(1);
+        OctopusApi spaceApi = createApi(new WebClientOptions()
+                .setMaxAttempts(3)
+                .setRetryBaseDelayMillis(1)
+                .setRetryMaxDelayMillis(10)).forSpace(FakeOctopusServer.SPACE_ID);
+        try {
+            spaceApi.getProjectsApi().getAllProjects();
+            fail("Expected the request to fail");
+        } catch (WebResponseException ex) {
+            assertEquals(503, ex.getCode());
+        }
+        assertEquals(3, server.getRequestCount("GET", "projects/all"));
+        assertEquals(2, api.getMetrics().getRetries());
+        assertEquals(1, api.getMetrics().getRetriesExhausted());
+    }
+
+    @Test
+    public void testTimeoutWhileReadingTheBodyIsNotRetried() {
+        server.setBodyStallMillis(1000);
+        OctopusApi spaceApi = createApi(new WebClientOptions()
+                .setReadTimeoutMillis(200)
+                .setRetryBaseDelayMillis(1)).forSpace(FakeOctopusServer.SPACE_ID);
+        try {
+            spaceApi.getProjectsApi().getAllProjects();
+            fail("Expected the read to time out");
+        } catch (IOException ex) {
+            assertEquals(1, server.getRequestCount("GET", "projects/all"));
+            assertEquals(0, api.getMetrics().getRetries());
+        }
+    }
+
+    @Test
+    public void testDeadlineExpiringMidBodyFailsTheCall() {
+        server.setBodyStallMillis(2000);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID)
+                .withDeadline(Deadline.after(300, TimeUnit.MILLISECONDS));
+        long startNanos = System.nanoTime();
+        try {
+            spaceApi.getProjectsApi().getAllProjects();
+            fail("Expected the deadline to be exceeded");
+        } catch (IOException ex) {
+            assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(1500));
+            assertEquals(1, server.getRequestCount("GET", "projects/all"));
+        }
+    }
+
+    @Test
+    public void testExpiredDeadlineSendsNoRequest() throws IOException {
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID)
+                .withDeadline(Deadline.after(0, TimeUnit.MILLISECONDS));
+        try {
+            spaceApi.getProjectsApi().getAllProjects();
+            fail("Expected the deadline to be exceeded");
+        } catch (DeadlineExceededException ex) {
+            assertEquals(0, server.getRequestCount());
+        }
+        try {
+            Deadline.after(0, TimeUnit.MILLISECONDS).guard(new ByteArrayInputStream(new byte[1]), "reading").read();
+            fail("Expected the guarded stream to fail");
+        } catch (DeadlineExceededException ex) {
+            assertTrue(ex.getMessage().contains("reading"));
+        }
+    }
+
+    @Test
+    public void testTimeoutsAreClampedToTheDeadline() {
+        assertEquals(60000, Deadline.none().clampTimeout(60000));
+        assertEquals(0, Deadline.none().clampTimeout(0));
+        Deadline deadline = Deadline.after(1, TimeUnit.SECONDS);
+        assertTrue(deadline.clampTimeout(60000) <= 1000);
+        assertTrue(deadline.clampTimeout(0) > 0 && deadline.clampTimeout(0) <= 1000);
+        assertEquals(1, Deadline.after(0, TimeUnit.MILLISECONDS).clampTimeout(60000));
+    }
+
+    @Test
+    public void testRateLimitSpacesOutRequestsAfterABurst() {
+        OctopusApi spaceApi = createApi(new WebClientOptions().setRequestsPerSecond(10)).forSpace(FakeOctopusServer.SPACE_ID);
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Task>> futures = new ArrayList<>();
+        for (int i = 1; i <= 15; i++) {
+            futures.add(spaceApi.getTasksApi().getTaskAsync("ServerTasks-" + i));
+        }
+        futures.forEach(CompletableFuture::join);
+        // the first ten empty the one second bucket, and the other five follow 100 ms apart
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(api.getMetrics().getThrottledRequests() >= 4);
+        assertTrue(api.getMetrics().getMaxQueueWaitMillis() >= 300);
+        assertEquals(0, api.getMetrics().getQueuedRequests());
+    }
+
+    @Test
+    public void testConcurrentRequestsWaitForASlot() throws IOException {
+        server.setLatencyMillis(100);
+        OctopusApi spaceApi = createApi(new WebClientOptions().setMaxConcurrentRequests(1)).forSpace(FakeOctopusServer.SPACE_ID);
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<Set<Channel>>> futures = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            futures.add(spaceApi.getChannelsApi().getChannelsByProjectIdAsync("Projects-" + i));
+        }
+        for (CompletableFuture<Set<Channel>> future : futures) {
+            assertEquals(1, future.join().size());
+        }
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(api.getMetrics().getThrottledRequests() >= 3);
+        assertTrue(api.getMetrics().getMaxQueueWaitMillis() >= 250);
+        assertEquals(0, api.getWebClient().getRequestLimiter().getInFlightRequests());
+    }
+
+    @Test
+    public void testWaitingForASlotStopsAtTheDeadline() throws IOException {
+        server.setLatencyMillis(1000);
+        OctopusApi spaceApi = createApi(new WebClientOptions().setMaxConcurrentRequests(1)).forSpace(FakeOctopusServer.SPACE_ID);
+        CompletableFuture<Set<Project>> slow = spaceApi.getProjectsApi().getAllProjectsAsync();
+        while (api.getWebClient().getRequestLimiter().getInFlightRequests() == 0) {
+            Thread.yield();
+        }
+        try {
+            spaceApi.withDeadline(Deadline.after(100, TimeUnit.MILLISECONDS)).getTasksApi().getTask("ServerTasks-1");
+            fail("Expected the deadline to be exceeded");
+        } catch (DeadlineExceededException ex) {
+            assertEquals(0, server.getRequestCount("GET", "tasks/ServerTasks-1"));
+        }
+        assertEquals(50, slow.join().size());
+    }
+
+    @Test
+    public void testConcurrentIdenticalGetsAreCoalesced() throws IOException {
+        server.setLatencyMillis(200);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        List<CompletableFuture<Set<Project>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(spaceApi.getProjectsApi().getAllProjectsAsync());
+        }
+        for (CompletableFuture<Set<Project>> future : futures) {
+            assertEquals(50, ApiExecutor.await(future).size());
+        }
+        assertTrue(server.getRequestCount("GET", "projects/all") < futures.size());
+    }
+
+    @Test
+    public void testCreateReleaseSendsEscapedJson() throws IOException {
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        String notes = "line 1\nline \"2\" \\ ü";
+        spaceApi.getReleasesApi().createRelease("Projects-1", "1.0.6", notes);
+        assertEquals(1, server.getCreatedReleases().size());
+        assertEquals(notes, server.getCreatedReleases().get(0).get("ReleaseNotes").getAsString());
+        assertEquals("Projects-1", server.getCreatedReleases().get(0).get("ProjectId").getAsString());
+    }
+
+    @Test
+    public void testProjectNamesAreResolvedWithSearch() throws IOException {
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals("Projects-7", spaceApi.getProjectsApi().getProjectByName("Project 7").getId());
+        assertEquals("Projects-7", spaceApi.getProjectsApi().getProjectByName("Project 7").getId());
+        assertEquals("Projects-12", spaceApi.getProjectsApi().getProjectByName("PROJECT 12", true).getId());
+        assertNull(spaceApi.getProjectsApi().getProjectByName("project 12"));
+        assertNull(spaceApi.getProjectsApi().getProjectByName("No such project", true));
+        assertEquals(4, server.getRequestCount("GET", "projects"));
+        assertEquals(0, server.getRequestCount("GET", "projects/all"));
+        assertEquals(4, api.getMetrics().getNameCacheLoads());
+        assertEquals(1, api.getMetrics().getNameCacheHits());
+    }
+
+    @Test
+    public void testProjectNamesFallBackToFullListWithoutSearch() throws IOException {
+        server.setPartialNameSupported(false);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals("Projects-42", spaceApi.getProjectsApi().getProjectByName("Project 42").getId());
+        assertEquals("Projects-43", spaceApi.getProjectsApi().getProjectByName("project 43", true).getId());
+        assertEquals(1, server.getRequestCount("GET", "projects/all"));
+        assertEquals(1, server.getRequestCount("GET", "projects"));
+    }
+
+    @Test
+    public void testReleasesAreReadPageByPage() throws IOException {
+        server.setReleasesPerProject(75);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals(75, spaceApi.getReleasesApi().getReleasesForProject("Projects-3").size());
+        assertEquals(3, server.getRequestCount("GET", "projects/Projects-3/releases"));
+
+        PagedIterator<Release> releases = spaceApi.getReleasesApi().iterateReleasesForProject("Projects-4", 10);
+        assertEquals("1.0.70", releases.find(release -> "1.0.70".equals(release.getVersion())).getVersion());
+        assertEquals(1, releases.getPagesLoaded());
+        assertNull(releases.find(release -> "2.0.0".equals(release.getVersion())));
+        assertEquals(8, releases.getPagesLoaded());
+    }
+
+    @Test
+    public void testReleaseIsLookedUpByVersion() throws IOException {
+        server.setReleasesPerProject(75);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        Release release = spaceApi.getReleasesApi().getReleaseByVersion("Projects-3", "1.0.2");
+        assertEquals("1.0.2", release.getVersion());
+        assertEquals("Projects-3", release.getProjectId());
+        assertNull(spaceApi.getReleasesApi().getReleaseByVersion("Projects-3", "2.0.0+build 1"));
+        assertTrue(spaceApi.getReleasesApi().releaseExists("Projects-3", "1.0.75"));
+        assertEquals(1, server.getRequestCount("GET", "projects/Projects-3/releases/2.0.0+build 1"));
+        assertEquals(0, server.getRequestCount("GET", "projects/Projects-3/releases"));
+    }
+
+    @Test
+    public void testResponsesAreStreamedIntoModelObjects() throws IOException {
+        OctopusApi systemApi = createApi(new WebClientOptions());
+        assertTrue(systemApi.getSupportsSpaces());
+        assertEquals(FakeOctopusServer.SPACE_ID, systemApi.getSpacesApi().getAllSpaces().iterator().next().getId());
+
+        OctopusApi spaceApi = systemApi.forSpace(FakeOctopusServer.SPACE_ID);
+        Channel channel = spaceApi.getChannelsApi().getChannelsByProjectId("Projects-5").iterator().next();
+        assertEquals("Channels-5", channel.getId());
+        assertTrue(channel.getIsDefault());
+        Task task = spaceApi.getTasksApi().getTask("ServerTasks-9");
+        assertEquals("Success", task.getState());
+        assertTrue(task.getIsCompleted());
+        assertEquals("/app#/projects/Projects-5/releases/1.0.3", spaceApi.getReleasesApi().getPortalUrlForRelease("Projects-5", "1.0.3"));
+
+        spaceApi.getDeploymentsApi().executeDeployment("Releases-5-3", "Environments-1", null);
+        assertEquals("/app#/deployments/Deployments-1",
+                spaceApi.getDeploymentsApi().getPortalUrlForDeployment("Projects-5", "Releases-5-3", "Environments-1", null));
+        assertNull(spaceApi.getDeploymentsApi().getPortalUrlForDeployment("Projects-5", "9.9.9", "Environments-1", null));
+    }
+
+    @Test
+    public void testBuildStepNamesAreResolvedTogether() throws IOException {
+        server.setTenants(5).setEnvironments(3).setLatencyMillis(100);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        NameResolver.Resolution names = spaceApi.getNameResolver().resolve(new NameResolver.Request()
+                .setProject("project 7")
+                .setChannel("Default")
+                .addEnvironments(Arrays.asList("Environment 1", " environment 3 ", ""))
+                .addTenants(Arrays.asList("Tenant 2", "No such tenant"))
+                .setIgnoreCase(true));
+        assertEquals("Projects-7", names.getProject().getId());
+        assertEquals("Channels-7", names.getChannel().getId());
+        assertEquals(Arrays.asList("Environment 1", "environment 3"), new ArrayList<>(names.getEnvironments().keySet()));
+        assertEquals("Environments-3", names.getEnvironments().get("environment 3").getId());
+        assertEquals("Tenants-2", names.getTenants().get("Tenant 2").getId());
+        assertEquals(Arrays.asList("Tenant 'No such tenant'"), names.getMissingNames());
+    }
+
+    @Test
+    public void testTenantTagsAreExpandedToTenantsLocally() throws IOException {
+        server.setTenants(12);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        TenantTagIndex index = spaceApi.getTenantsApi().getTenantTagIndex();
+        assertEquals(Arrays.asList("Region/EU", "Region/US", "Tier/Gold", "Tier/Silver"), new ArrayList<>(index.getCanonicalTagNames()));
+        assertEquals(6, index.getTenantIds("Region/EU").size());
+        assertEquals(12, index.resolve(Arrays.asList("Region/EU", "Region/US")).size());
+        List<Tenant> goldInEu = index.resolve(Arrays.asList("Region/EU", "Tier/Gold"));
+        assertEquals(Arrays.asList("Tenants-3", "Tenants-9"), Arrays.asList(goldInEu.get(0).getId(), goldInEu.get(1).getId()));
+        assertTrue(index.resolve(Collections.singleton("Tier/Silver")).isEmpty());
+        try {
+            index.resolve(Collections.singleton("Region/APAC"));
+            fail("Expected an unknown tag to be rejected");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("Region/APAC"));
+        }
+
+        assertSame(index, spaceApi.getTenantsApi().getTenantTagIndex());
+        assertEquals(1, server.getRequestCount("GET", "tagsets/all"));
+        assertEquals(1, server.getRequestCount("GET", "tenants/all"));
+
+        NameResolver.Resolution names = spaceApi.getNameResolver().resolve(new NameResolver.Request()
+                .addTenantTags(Arrays.asList("Tier/Gold", " Region/US", "No/Such")));
+        assertEquals(Arrays.asList("Tenant tag 'No/Such'"), names.getMissingNames());
+        assertTrue(names.getTaggedTenants().isEmpty());
+        assertEquals(2, spaceApi.getNameResolver().resolve(new NameResolver.Request()
+                .addTenantTags(Arrays.asList("Tier/Gold", " Region/US"))).getTaggedTenants().size());
+    }
+
+    @Test
+    public void testTenantTagIndexSharesTheTenantsOfTheNameCache() throws IOException {
+        server.setTenants(12);
+        server.setPartialNameSupported(false);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals("Tenants-3", spaceApi.getTenantsApi().getTenantByName("Tenant 3").getId());
+        assertEquals(6, spaceApi.getTenantsApi().getTenantTagIndex().getTenantIds("Region/US").size());
+        assertEquals(1, server.getRequestCount("GET", "tenants/all"));
+        assertEquals(1, server.getRequestCount("GET", "tagsets/all"));
+    }
+
+    @Test
+    public void testTenantTagIndexUpdatesOnlyChangedTenants() {
+        Set<TagSet> tagSets = Collections.emptySet();
+        Tenant first = new Tenant("Tenants-1", "First", new HashSet<>(Arrays.asList("Region/EU", "Tier/Gold")));
+        Tenant second = new Tenant("Tenants-2", "Second", Collections.singleton("Region/EU"));
+        TenantTagIndex index = TenantTagIndex.build(tagSets, Arrays.asList(first, second));
+        Set<String> gold = index.getTenantIds("Tier/Gold");
+
+        TenantTagIndex updated = index.update(tagSets, Arrays.asList(first,
+                new Tenant("Tenants-2", "Second", Collections.singleton("Region/US")),
+                new Tenant("Tenants-3", "Third", Collections.singleton("Region/EU"))));
+        assertSame(gold, updated.getTenantIds("Tier/Gold"));
+        assertEquals(new HashSet<>(Arrays.asList("Tenants-1", "Tenants-3")), updated.getTenantIds("Region/EU"));
+        assertEquals(Collections.singleton("Tenants-2"), updated.getTenantIds("Region/US"));
+        assertEquals(new HashSet<>(Arrays.asList("Tenants-1", "Tenants-2")), index.getTenantIds("Region/EU"));
+
+        TenantTagIndex removed = updated.update(tagSets, Collections.singletonList(first));
+        assertTrue(removed.getTenantIds("Region/US").isEmpty());
+        assertEquals(Collections.singleton("Tenants-1"), removed.getTenantIds("Region/EU"));
+    }
+
+    @Test
+    public void testNamesAreRestoredFromSnapshotsAfterARestart() throws Exception {
+        server.setPartialNameSupported(false);
+        WebClientOptions options = new WebClientOptions().setSnapshotDirectory(temporaryFolder.getRoot());
+        OctopusApi spaceApi = createApi(options).forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals("Projects-42", spaceApi.getProjectsApi().getProjectByName("Project 42").getId());
+        assertEquals("Environments-2", spaceApi.getEnvironmentsApi().getEnvironmentByName("environment 2", true).getId());
+        api.close();
+        assertEquals(1, server.getRequestCount("GET", "projects/all"));
+        assertEquals(1, server.getRequestCount("GET", "environments"));
+
+        server.setLatencyMillis(500);
+        spaceApi = createApi(options).forSpace(FakeOctopusServer.SPACE_ID);
+        long startNanos = System.nanoTime();
+        assertEquals("Projects-12", spaceApi.getProjectsApi().getProjectByName("Project 12").getId());
+        assertEquals("Environments-2", spaceApi.getEnvironmentsApi().getEnvironmentByName("environment 2", true).getId());
+        assertTrue(System.nanoTime() - startNanos < 500 * 1000 * 1000L);
+        assertEquals(2, api.getMetrics().getNameCacheHits());
+
+        // both were handed to the server to revalidate in the background
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((server.getRequestCount("GET", "projects/all") < 2 || server.getRequestCount("GET", "environments") < 2)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, server.getRequestCount("GET", "projects/all"));
+        assertEquals(2, server.getRequestCount("GET", "environments"));
+    }
+
+    @Test
+    public void testClosingAViewLeavesTheSharedClientOpen() throws IOException {
+        OctopusApi systemApi = createApi(new WebClientOptions());
+        try (OctopusApi spaceApi = systemApi.forSpace(FakeOctopusServer.SPACE_ID)) {
+            assertEquals(50, spaceApi.getProjectsApi().getAllProjects().size());
+        }
+        systemApi.withDeadline(Deadline.after(5, TimeUnit.SECONDS)).close();
+        assertEquals(50, systemApi.forSpace(FakeOctopusServer.SPACE_ID).getProjectsApi().getAllProjects().size());
+    }
+
+    @Test
+    public void testRetiredClientClosesOnceCallsInFlightComplete() throws IOException {
+        server.setLatencyMillis(200);
+        OctopusApi spaceApi = createApi(new WebClientOptions()).forSpace(FakeOctopusServer.SPACE_ID);
+        CompletableFuture<Set<Project>> inFlight = spaceApi.getProjectsApi().getAllProjectsAsync();
+        api.closeWhenIdle();
+        assertEquals(50, ApiExecutor.await(inFlight).size());
+        try {
+            spaceApi.getProjectsApi().getAllProjects();
+            fail("Expected the retired client to be closed");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("shut down"));
+        }
+    }
+
+    @Test
+    public void testCapabilitiesAreReadInTheBackgroundAndKept() throws IOException, InterruptedException {
+        OctopusApi systemApi = createApi(new WebClientOptions());
+        // a page render never waits for the server
+        assertNull(systemApi.getCachedCapabilities());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (systemApi.getCachedCapabilities() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        ServerCapabilities capabilities = systemApi.getCachedCapabilities();
+        assertEquals("2020.1.0", capabilities.getVersion());
+        assertEquals("/api/spaces{/id}{?skip,ids,take,partialName}", capabilities.getLink("Spaces"));
+
+        assertTrue(systemApi.getSupportsSpaces());
+        assertTrue(systemApi.forSpace(FakeOctopusServer.SPACE_ID).getSupportsSpaces());
+        assertSame(capabilities, systemApi.getCapabilities());
+        assertEquals(1, server.getRequestCount("GET", ""));
+    }
+
+    @Test
+    public void testEverySpaceIsPrefetched() throws IOException {
+        server.setProjects(6).setTenants(4);
+        OctopusApi systemApi = createApi(new WebClientOptions());
+        MetadataPrefetcher.Result result = systemApi.getMetadataPrefetcher(2).prefetch();
+        assertEquals(3 + 6, result.getLoaded());
+        assertEquals(0, result.getFailed());
+        assertEquals(1, server.getRequestCount("GET", "tagsets/all"));
+
+        long requests = server.getRequestCount();
+        OctopusApi spaceApi = systemApi.forSpace(FakeOctopusServer.SPACE_ID);
+        assertEquals("Projects-4", spaceApi.getProjectsApi().getProjectByName("Project 4").getId());
+        assertEquals("Environments-2", spaceApi.getEnvironmentsApi().getEnvironmentByName("Environment 2").getId());
+        assertEquals("Tenants-3", spaceApi.getTenantsApi().getTenantByName("Tenant 3").getId());
+        assertEquals("Channels-5", spaceApi.getChannelsApi().getChannelByName("Projects-5", "Default").getId());
+        assertEquals(2, spaceApi.getTenantsApi().getTenantTagIndex().getTenantIds("Region/EU").size());
+        assertEquals(requests, server.getRequestCount());
+    }
+}
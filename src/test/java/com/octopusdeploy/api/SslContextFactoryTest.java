@@ -0,0 +1,82 @@
+package com.octopusdeploy.api;
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.net.ssl.X509TrustManager;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SslContextFactoryTest {
+
+    // a self-signed certificate for octopus.example.test
+    private static final String CERTIFICATE = "-----BEGIN CERTIFICATE-----\n"
+            + "MIIBlTCCATugAwIBAgIUIyyYFHo7q7UII79Dgt5AeWar0GgwCgYIKoZIzj0EAwIw\n"
+            + "HzEdMBsGA1UEAwwUb2N0b3B1cy5leGFtcGxlLnRlc3QwIBcNMjYxMDE2MjAzODU0\n"
+            + "WhgPMjEyNjA5MjIyMDM4NTRaMB8xHTAbBgNVBAMMFG9jdG9wdXMuZXhhbXBsZS50\n"
+            + "ZXN0MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAEajteFHqyXePUe8xsyimHXHdB\n"
+            + "WWjcJ/lSK3ADZi1j2ZgXQSGPQykzdU8gMdJYCnzwaU3oeqKp4VpTEPh4LCuZUqNT\n"
+            + "MFEwHQYDVR0OBBYEFJg/sLWZgObKe/FWk4g801qvcUe+MB8GA1UdIwQYMBaAFJg/\n"
+            + "sLWZgObKe/FWk4g801qvcUe+MA8GA1UdEwEB/wQFMAMBAf8wCgYIKoZIzj0EAwID\n"
+            + "SAAwRQIgWnEUe/s8ucL1oEfH0nxMDArKq2iv7HhSzhIqDIGBPEYCIQCPRLjHlxZA\n"
+            + "fvjU7wJSwspYSB/FDc7t8Y2wf5q6Vq3O4w==\n"
+            + "-----END CERTIFICATE-----\n";
+
+    @Test
+    public void testBlankTextHasNoCertificates() throws CertificateException {
+        assertTrue(SslContextFactory.parseCertificates(null).isEmpty());
+        assertTrue(SslContextFactory.parseCertificates("  \n ").isEmpty());
+    }
+
+    @Test
+    public void testPemCertificatesAreParsed() throws CertificateException {
+        List<X509Certificate> certificates = SslContextFactory.parseCertificates("\n" + CERTIFICATE + "\r\n" + CERTIFICATE);
+        assertEquals(2, certificates.size());
+        assertEquals("CN=octopus.example.test", certificates.get(0).getSubjectX500Principal().getName());
+        assertEquals(certificates.get(0), certificates.get(1));
+    }
+
+    @Test
+    public void testInvalidTextIsRejected() {
+        for (String pem : Arrays.asList("not a certificate", CERTIFICATE.substring(0, CERTIFICATE.length() / 2))) {
+            try {
+                SslContextFactory.parseCertificates(pem);
+                fail("Expected the certificates to be rejected: " + pem);
+            } catch (CertificateException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testTrustedCertificatesAreAddedToTheJvmAuthorities() throws Exception {
+        X509Certificate certificate = SslContextFactory.parseCertificates(CERTIFICATE).get(0);
+        X509TrustManager jvm = SslContextFactory.createTrustManager(Collections.emptyList());
+        try {
+            jvm.checkServerTrusted(new X509Certificate[] { certificate }, "ECDHE_ECDSA");
+            fail("Expected the JVM authorities not to trust a self-signed certificate");
+        } catch (CertificateException ex) {
+            // expected
+        }
+
+        X509TrustManager merged = SslContextFactory.createTrustManager(Collections.singletonList(certificate));
+        merged.checkServerTrusted(new X509Certificate[] { certificate }, "ECDHE_ECDSA");
+        List<X509Certificate> issuers = Arrays.asList(merged.getAcceptedIssuers());
+        assertTrue(issuers.contains(certificate));
+        assertTrue(issuers.containsAll(Arrays.asList(jvm.getAcceptedIssuers())));
+        assertEquals(jvm.getAcceptedIssuers().length + 1, issuers.size());
+    }
+
+    @Test
+    public void testContextIsCreatedWithTrustedCertificates() {
+        assertNotNull(SslContextFactory.create(new WebClientOptions().setTrustedCertificates(CERTIFICATE)));
+        try {
+            SslContextFactory.create(new WebClientOptions().setTrustedCertificates("not a certificate"));
+            fail("Expected the certificates to be rejected");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+}